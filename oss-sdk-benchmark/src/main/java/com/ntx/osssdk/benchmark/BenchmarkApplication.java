@@ -0,0 +1,14 @@
+package com.ntx.osssdk.benchmark;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/**
+ * @ClassName BenchmarkApplication
+ * @Author ntx
+ * @Description 端到端基准测试使用的最小Spring Boot应用，通过自动配置加载SDK
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class BenchmarkApplication {
+}
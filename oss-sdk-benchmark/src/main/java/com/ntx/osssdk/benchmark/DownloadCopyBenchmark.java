@@ -0,0 +1,80 @@
+package com.ntx.osssdk.benchmark;
+
+import com.ntx.osssdk.utils.FileChannelUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName DownloadCopyBenchmark
+ * @Author ntx
+ * @Description 下载时从响应流写入本地文件：通道复用缓冲区写入与先读入内存再写文件的对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DownloadCopyBenchmark {
+
+    @Param({"8388608"})
+    private int fileSize;
+
+    @Param({"8192", "65536", "262144"})
+    private int bufferSize;
+
+    private byte[] data;
+
+    private Path target;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new byte[fileSize];
+        new Random(42).nextBytes(data);
+        target = Files.createTempFile("oss-bench", ".bin");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    /**
+     * 当前实现：从通道读入复用的直接缓冲区后写入文件
+     */
+    @Benchmark
+    public long channelTransfer() throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return FileChannelUtil.transfer(Channels.newChannel(new ByteArrayInputStream(data)), channel, 0, bufferSize);
+        }
+    }
+
+    /**
+     * 基线：整个响应读入内存后一次写入文件
+     */
+    @Benchmark
+    public long readFullyThenWrite() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        try (InputStream inputStream = new ByteArrayInputStream(data)) {
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, length);
+            }
+        }
+        byte[] bytes = outputStream.toByteArray();
+        Files.write(target, bytes, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return bytes.length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ntx.osssdk.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * @ClassName Internals
+ * @Author ntx
+ * @Description 访问SDK内部字段和私有方法，不启动Spring容器即可测量单个方法
+ */
+final class Internals {
+
+    private Internals() {
+    }
+
+    /**
+     * 设置字段的值，包括父类中的字段
+     */
+    static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException ignored) {
+                // 继续查找父类
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    /**
+     * 获取私有方法的句柄
+     */
+    static MethodHandle method(Class<?> type, String name, Class<?>... parameterTypes) throws ReflectiveOperationException {
+        Method method = type.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
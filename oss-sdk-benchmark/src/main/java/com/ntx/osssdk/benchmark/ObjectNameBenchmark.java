@@ -0,0 +1,94 @@
+package com.ntx.osssdk.benchmark;
+
+import com.ntx.osssdk.client.impl.AliyunClient;
+import com.ntx.osssdk.client.impl.MinioClients;
+import com.ntx.osssdk.client.impl.QiniuClients;
+import com.ntx.osssdk.key.DefaultObjectKeyGenerator;
+import com.ntx.osssdk.key.ObjectKeyGenerator;
+import com.ntx.osssdk.properties.Properties;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName ObjectNameBenchmark
+ * @Author ntx
+ * @Description 每次上传都会执行的对象名称生成和访问路径拼接
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectNameBenchmark {
+
+    private static final String ORIGINAL_FILENAME = "report-2024.final.xlsx";
+
+    private static final String OBJECT_NAME = "2024/01/01/0123456789abcdef0123456789abcdef.xlsx";
+
+    private ObjectKeyGenerator defaultGenerator;
+    private ObjectKeyGenerator shardedGenerator;
+    private MethodHandle minioUrl;
+    private MethodHandle aliyunUrl;
+    private MethodHandle qiniuUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        Properties properties = new Properties();
+        properties.setEndpoint("https://oss-cn-hangzhou.aliyuncs.com");
+        properties.setBucket("bench");
+        MinioClients minio = new MinioClients();
+        AliyunClient aliyun = new AliyunClient();
+        QiniuClients qiniu = new QiniuClients();
+        Internals.set(minio, "properties", properties);
+        Internals.set(aliyun, "properties", properties);
+        Internals.set(qiniu, "properties", properties);
+        defaultGenerator = new DefaultObjectKeyGenerator();
+        shardedGenerator = new DefaultObjectKeyGenerator(2, ZoneId.systemDefault());
+        minioUrl = Internals.method(MinioClients.class, "getUrl", String.class).bindTo(minio);
+        aliyunUrl = Internals.method(AliyunClient.class, "getUrl", String.class).bindTo(aliyun);
+        qiniuUrl = Internals.method(QiniuClients.class, "getUrl", String.class).bindTo(qiniu);
+    }
+
+    @Benchmark
+    public String defaultKey() {
+        return defaultGenerator.generate(ORIGINAL_FILENAME);
+    }
+
+    @Benchmark
+    public String shardedKey() {
+        return shardedGenerator.generate(ORIGINAL_FILENAME);
+    }
+
+    /**
+     * 基线：各客户端原先的getFileName实现
+     */
+    @Benchmark
+    public String uuidKey() {
+        String key = UUID.randomUUID().toString().replace("-", "");
+        String suffix = ORIGINAL_FILENAME.substring(ORIGINAL_FILENAME.lastIndexOf("."));
+        String dateString = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd/"));
+        return String.format("%s%s%s", dateString, key, suffix);
+    }
+
+    @Benchmark
+    public String minioUrl() throws Throwable {
+        return (String) minioUrl.invokeExact(OBJECT_NAME);
+    }
+
+    @Benchmark
+    public String aliyunUrl() throws Throwable {
+        return (String) aliyunUrl.invokeExact(OBJECT_NAME);
+    }
+
+    @Benchmark
+    public String qiniuUrl() throws Throwable {
+        return (String) qiniuUrl.invokeExact(OBJECT_NAME);
+    }
+}
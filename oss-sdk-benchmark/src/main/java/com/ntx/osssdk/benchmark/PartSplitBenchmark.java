@@ -0,0 +1,94 @@
+package com.ntx.osssdk.benchmark;
+
+import com.ntx.osssdk.multipart.MultipartUploadEngine;
+import com.ntx.osssdk.multipart.PartData;
+import com.ntx.osssdk.multipart.UploadedPart;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName PartSplitBenchmark
+ * @Author ntx
+ * @Description minio和阿里云分片上传共用的读取与切分分片流程：读入堆内缓冲区 与 按位置切分本地文件 的对比，
+ * 分片上传只读取一遍分片数据
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartSplitBenchmark {
+
+    @Param({"16777216", "67108864"})
+    private int fileSize;
+
+    @Param({"5242880"})
+    private long partSize;
+
+    @Param({"4"})
+    private int parallelism;
+
+    private byte[] data;
+
+    private Path file;
+
+    private ExecutorService executor;
+
+    private MultipartUploadEngine engine;
+
+    @Setup
+    public void setup() throws Exception {
+        data = new byte[fileSize];
+        new Random(42).nextBytes(data);
+        file = Files.createTempFile("bench-part", ".bin");
+        Files.write(file, data);
+        executor = Executors.newFixedThreadPool(16, runnable -> {
+            Thread thread = new Thread(runnable, "bench-part");
+            thread.setDaemon(true);
+            return thread;
+        });
+        engine = new MultipartUploadEngine();
+        Internals.set(engine, "ossPartExecutor", executor);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<UploadedPart> split() throws Exception {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return engine.upload(inputStream, partSize, parallelism, PartSplitBenchmark::drain);
+        }
+    }
+
+    @Benchmark
+    public List<UploadedPart> splitFile() throws Exception {
+        return engine.upload(file, fileSize, partSize, parallelism, PartSplitBenchmark::drain, null, null);
+    }
+
+    /**
+     * 模拟发送请求体：用小缓冲区读一遍分片数据
+     */
+    private static String drain(int partNumber, PartData part) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = part.openStream()) {
+            while (inputStream.read(buffer) != -1) {
+                // 丢弃数据
+            }
+        }
+        return "etag-" + partNumber;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ntx.osssdk.benchmark;
+
+import com.ntx.osssdk.benchmark.standin.ProviderStandIn;
+import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.client.impl.QiniuClients;
+import com.qiniu.storage.Configuration;
+import com.qiniu.storage.Region;
+import com.qiniu.storage.UploadManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName TransferBenchmark
+ * @Author ntx
+ * @Description 通过OssClient对进程内存储服务替身进行端到端上传和下载
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    @Param({"minio", "aliyun", "qiniu"})
+    private String provider;
+
+    /**
+     * 不超过七牛云表单上传的阈值，替身只实现了表单上传
+     */
+    @Param({"65536", "1048576"})
+    private int payloadSize;
+
+    private ProviderStandIn standIn;
+
+    private ConfigurableApplicationContext context;
+
+    private OssClient ossClient;
+
+    private MockMultipartFile file;
+
+    private Path downloadDir;
+
+    private String objectUrl;
+
+    private File downloadTarget;
+
+    @Setup
+    public void setup() throws Exception {
+        standIn = new ProviderStandIn(payloadSize).start();
+        String endpoint = "http://127.0.0.1:" + standIn.getPort();
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--oss.client.type=" + provider,
+                        "--oss.client.endpoint=" + endpoint,
+                        "--oss.client.bucket=bench",
+                        "--oss.client.access-key=bench",
+                        "--oss.client.secret-key=bench",
+                        "--oss.client.qiniu.region=z0",
+                        "--oss.client.multipart.checkpoint-enabled=false");
+        ossClient = context.getBean(OssClient.class);
+        if (ossClient instanceof QiniuClients) {
+            // 七牛云的上传地址由区域决定，替换为指向替身的上传管理器
+            Configuration configuration = new Configuration(new Region.Builder()
+                    .srcUpHost("127.0.0.1:" + standIn.getPort())
+                    .accUpHost("127.0.0.1:" + standIn.getPort())
+                    .build());
+            configuration.useHttpsDomains = false;
+            Internals.set(ossClient, "uploadManager", new UploadManager(configuration));
+        }
+        byte[] data = new byte[payloadSize];
+        new Random(42).nextBytes(data);
+        file = new MockMultipartFile("file", "bench.bin", "application/octet-stream", data);
+        downloadDir = Files.createTempDirectory("oss-bench");
+        objectUrl = ossClient.upload(file);
+        downloadTarget = new File(downloadDir.toFile(), objectUrl.substring(objectUrl.lastIndexOf('/') + 1));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        standIn.close();
+        Files.deleteIfExists(downloadTarget.toPath());
+        Files.deleteIfExists(downloadDir);
+    }
+
+    @Benchmark
+    public String upload() throws Exception {
+        return ossClient.upload(file);
+    }
+
+    @Benchmark
+    public boolean download() throws Exception {
+        // minio不覆盖已存在的文件
+        Files.deleteIfExists(downloadTarget.toPath());
+        return ossClient.download(downloadDir.toString(), objectUrl);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ntx.osssdk.benchmark.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @ClassName ProviderStandIn
+ * @Author ntx
+ * @Description 进程内的存储服务替身，只实现上传和下载所需的最小接口，端到端测量SDK自身的开销。
+ * PUT（minio、阿里云）和POST（七牛云表单上传）读取请求体后返回成功，GET返回固定大小的数据，HEAD返回对象元数据。
+ */
+public class ProviderStandIn implements AutoCloseable {
+
+    private static final String ETAG = "\"d41d8cd98f00b204e9800998ecf8427e\"";
+
+    private static final String LOCATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<LocationConstraint xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">us-east-1</LocationConstraint>";
+
+    private final byte[] payload;
+
+    private final String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    public ProviderStandIn(int payloadSize) {
+        this.payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'x');
+    }
+
+    public ProviderStandIn start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            drain(requestBody);
+        }
+        String method = exchange.getRequestMethod();
+        String query = exchange.getRequestURI().getRawQuery();
+        exchange.getResponseHeaders().set("x-oss-request-id", "bench");
+        exchange.getResponseHeaders().set("X-Reqid", "bench");
+        if ("GET".equals(method) && query != null && query.contains("location")) {
+            send(exchange, "application/xml", LOCATION.getBytes(StandardCharsets.UTF_8));
+        } else if ("PUT".equals(method)) {
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.sendResponseHeaders(200, -1);
+        } else if ("POST".equals(method)) {
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            send(exchange, "application/json", "{\"key\":\"bench\",\"hash\":\"bench\"}".getBytes(StandardCharsets.UTF_8));
+        } else if ("HEAD".equals(method)) {
+            objectHeaders(exchange);
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(payload.length));
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            objectHeaders(exchange);
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(payload);
+            }
+        }
+        exchange.close();
+    }
+
+    private void objectHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Last-Modified", lastModified);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+    }
+
+    private static void send(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static void drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (inputStream.read(buffer) != -1) {
+            // 丢弃上传的数据
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ntx.osssdk;
 
 import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.client.HedgedOssClient;
 import com.ntx.osssdk.client.OssClientFactory;
 import com.ntx.osssdk.properties.Properties;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +25,10 @@ public class OssSdkClientConfig {
 
     @Bean
     public OssClient ossClient(){
+        // 配置了多个存储服务时使用按延迟选择并对冲读取的组合客户端
+        if (!properties.getBackends().isEmpty()) {
+            return new HedgedOssClient();
+        }
         return OssClientFactory.newInstance(properties.getType());
     }
 
@@ -0,0 +1,436 @@
+package com.ntx.osssdk.cache;
+
+import com.ntx.osssdk.model.ObjectContent;
+import com.ntx.osssdk.utils.DigestUtil;
+import com.ntx.osssdk.utils.FileChannelUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * @ClassName DiskCache
+ * @Author ntx
+ * @Description 下载的本地磁盘读穿缓存，按总字节数上限淘汰最久未使用的文件。命中时按ETag或修改时间向存储服务发送条件请求，
+ * 内容未变化时直接从本地文件复制；同一对象同时只有一个请求读取存储服务，写入临时文件后原子重命名，其余请求等待后共享结果。
+ * 每个缓存文件旁有记录ETag的.meta文件，重启后仍可使用
+ */
+@Slf4j
+public class DiskCache {
+
+    private static final String META_SUFFIX = ".meta";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 缓存文件名的格式，目录中的其他文件不处理
+     */
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}(\\..+)?");
+
+    /**
+     * 缓存文件被并发淘汰或替换时最多重新读取的次数，超过后不经过缓存直接下载
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Path dir;
+
+    private final long maxBytes;
+
+    private final long revalidateMillis;
+
+    private final int bufferSize;
+
+    /**
+     * 文件名（键的SHA-256）-> 缓存文件，按访问顺序排列，最久未使用的在前
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在从存储服务读取的文件名
+     */
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    private long totalBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictedBytes = new LongAdder();
+
+    public DiskCache(Path dir, long maxBytes, long revalidateMillis, int bufferSize) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("缓存大小上限必须大于0");
+        }
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.revalidateMillis = revalidateMillis;
+        this.bufferSize = bufferSize;
+        Files.createDirectories(dir);
+        load();
+    }
+
+    /**
+     * 把对象复制到本地文件，缓存中没有或内容已变化时先从存储服务读取到缓存
+     *
+     * @param key     缓存键
+     * @param target  本地文件
+     * @param fetcher 读取对象的方法
+     * @param options 打开本地文件的方式
+     * @return 写入的字节数
+     * @throws Exception 异常
+     */
+    public long copyTo(String key, Path target, ObjectFetcher fetcher, OpenOption... options) throws Exception {
+        String id = id(key);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Entry entry = lookup(id);
+            if (entry != null && entry.validatedAt + revalidateMillis > System.currentTimeMillis()) {
+                long copied = copy(id, entry, target, options);
+                if (copied >= 0) {
+                    hitCount.increment();
+                    return copied;
+                }
+                continue;
+            }
+            CompletableFuture<Entry> loader = new CompletableFuture<>();
+            CompletableFuture<Entry> running = loading.putIfAbsent(id, loader);
+            if (running == null) {
+                try {
+                    long copied = fill(id, entry, target, fetcher, loader, options);
+                    if (copied >= 0) {
+                        return copied;
+                    }
+                    continue;
+                } finally {
+                    loading.remove(id, loader);
+                }
+            }
+            Entry shared = await(running);
+            if (shared == null) {
+                // 对象超过缓存上限，不缓存
+                break;
+            }
+            long copied = copy(id, shared, target, options);
+            if (copied >= 0) {
+                hitCount.increment();
+                return copied;
+            }
+        }
+        missCount.increment();
+        try (ObjectContent content = fetcher.fetch(null, 0)) {
+            return write(content.getContent(), target, options);
+        }
+    }
+
+    /**
+     * 使缓存失效并删除缓存文件，正在读取该文件的请求不受影响
+     *
+     * @param key 缓存键
+     */
+    public void invalidate(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(id(key));
+            if (entry != null) {
+                totalBytes -= entry.size;
+            }
+        }
+        if (entry != null) {
+            delete(entry.id);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取累计淘汰的字节数
+     *
+     * @return 字节数
+     */
+    public long getEvictedBytes() {
+        return evictedBytes.sum();
+    }
+
+    /**
+     * 获取当前缓存文件的总字节数
+     *
+     * @return 字节数
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 从存储服务读取对象：已有缓存时发送条件请求，内容未变化只更新校验时间，否则写入临时文件后原子替换
+     *
+     * @return 写入的字节数，缓存文件已被淘汰需要重新读取时为-1
+     */
+    private long fill(String id, Entry cached, Path target, ObjectFetcher fetcher, CompletableFuture<Entry> loader,
+                      OpenOption... options) throws Exception {
+        ObjectContent content;
+        try {
+            content = cached == null ? fetcher.fetch(null, 0) : fetcher.fetch(cached.etag, cached.lastModified);
+        } catch (Exception e) {
+            loader.completeExceptionally(e);
+            throw e;
+        }
+        if (content == null) {
+            // 内容未变化
+            cached.validatedAt = System.currentTimeMillis();
+            loader.complete(cached);
+            long copied = copy(id, cached, target, options);
+            if (copied >= 0) {
+                hitCount.increment();
+            }
+            return copied;
+        }
+        missCount.increment();
+        try (ObjectContent body = content) {
+            if (body.getSize() > maxBytes) {
+                loader.complete(null);
+                return write(body.getContent(), target, options);
+            }
+            Entry entry = store(id, body);
+            loader.complete(entry);
+        } catch (Exception e) {
+            loader.completeExceptionally(e);
+            throw e;
+        }
+        return copy(id, await(loader), target, options);
+    }
+
+    /**
+     * 把对象内容写入缓存：先写临时文件，删除旧的.meta使旧文件失效，再依次原子重命名数据文件和.meta文件
+     */
+    private Entry store(String id, ObjectContent content) throws IOException {
+        String suffix = "." + UUID.randomUUID() + TEMP_SUFFIX;
+        Path data = dir.resolve(id);
+        Path meta = dir.resolve(id + META_SUFFIX);
+        Path dataTemp = dir.resolve(id + suffix);
+        Path metaTemp = dir.resolve(id + META_SUFFIX + suffix);
+        try {
+            long size = write(content.getContent(), dataTemp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            String etag = content.getEtag() == null ? "" : content.getEtag();
+            Files.write(metaTemp, (etag + "\n" + content.getLastModified() + "\n" + size).getBytes(StandardCharsets.UTF_8));
+            Entry entry = new Entry(id, etag.isEmpty() ? null : etag, content.getLastModified(), size);
+            List<Entry> evicted;
+            synchronized (this) {
+                Files.deleteIfExists(meta);
+                Files.move(dataTemp, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(metaTemp, meta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Entry previous = entries.put(id, entry);
+                if (previous != null) {
+                    totalBytes -= previous.size;
+                }
+                totalBytes += size;
+                evicted = evict(id);
+            }
+            for (Entry e : evicted) {
+                delete(e.id);
+            }
+            return entry;
+        } finally {
+            Files.deleteIfExists(dataTemp);
+            Files.deleteIfExists(metaTemp);
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的文件直到不超过上限，刚写入的文件不淘汰
+     *
+     * @param keep 刚写入的文件名，可为null
+     * @return 被淘汰的文件
+     */
+    private List<Entry> evict(String keep) {
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            evictedBytes.add(eldest.getValue().size);
+            evicted.add(eldest.getValue());
+        }
+        return evicted;
+    }
+
+    private synchronized Entry lookup(String id) {
+        return entries.get(id);
+    }
+
+    /**
+     * 把缓存文件复制到本地文件。缓存文件在加锁时打开，之后被淘汰或替换不影响已打开的文件
+     *
+     * @return 写入的字节数，缓存文件已被淘汰或替换时为-1
+     */
+    private long copy(String id, Entry entry, Path target, OpenOption... options) throws IOException {
+        FileChannel source;
+        synchronized (this) {
+            if (entries.get(id) != entry) {
+                return -1;
+            }
+            try {
+                source = FileChannel.open(dir.resolve(id), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // 缓存文件被外部删除
+                entries.remove(id);
+                totalBytes -= entry.size;
+                return -1;
+            }
+        }
+        try (FileChannel in = source) {
+            FileChannel channel = FileChannel.open(target, options);
+            try (FileChannel out = channel) {
+                long position = 0;
+                long size = in.size();
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                return position;
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+    }
+
+    private long write(InputStream inputStream, Path target, OpenOption... options) throws IOException {
+        FileChannel channel = FileChannel.open(target, options);
+        try (FileChannel out = channel) {
+            return FileChannelUtil.transfer(Channels.newChannel(inputStream), out, 0, bufferSize);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private void delete(String id) {
+        try {
+            // 先删除.meta，数据文件删除失败时重启后也不会再使用
+            Files.deleteIfExists(dir.resolve(id + META_SUFFIX));
+            Files.deleteIfExists(dir.resolve(id));
+        } catch (IOException e) {
+            log.warn("==>删除缓存文件失败：{}", dir.resolve(id), e);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 启动时加载已有的缓存文件，按修改时间作为访问顺序，删除残留的临时文件、没有.meta的数据文件和没有数据文件的.meta。
+     * 加载的文件首次使用前先向存储服务校验
+     */
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(DiskCache::lastModifiedTime));
+        files.removeIf(file -> !FILE_NAME.matcher(file.getFileName().toString()).matches());
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(META_SUFFIX)) {
+                continue;
+            }
+            Entry entry = name.endsWith(TEMP_SUFFIX) ? null : readMeta(name, Files.size(file));
+            if (entry == null) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            entry.validatedAt = 0;
+            entries.put(name, entry);
+            totalBytes += entry.size;
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(META_SUFFIX) && !entries.containsKey(name.substring(0, name.length() - META_SUFFIX.length()))) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Entry entry : evict(null)) {
+            delete(entry.id);
+        }
+    }
+
+    private Entry readMeta(String id, long size) {
+        try {
+            List<String> lines = Files.readAllLines(dir.resolve(id + META_SUFFIX), StandardCharsets.UTF_8);
+            if (lines.size() < 3 || Long.parseLong(lines.get(2)) != size) {
+                return null;
+            }
+            String etag = lines.get(0);
+            return new Entry(id, etag.isEmpty() ? null : etag, Long.parseLong(lines.get(1)), size);
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String id(String key) {
+        return DigestUtil.hex(DigestUtil.sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static class Entry {
+        private final String id;
+        private final String etag;
+        private final long lastModified;
+        private final long size;
+        /**
+         * 上次与存储服务校验的时间
+         */
+        private volatile long validatedAt;
+
+        private Entry(String id, String etag, long lastModified, long size) {
+            this.id = id;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+}
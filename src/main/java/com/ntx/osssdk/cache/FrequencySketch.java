@@ -0,0 +1,111 @@
+package com.ntx.osssdk.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * @ClassName FrequencySketch
+ * @Author ntx
+ * @Description 估算键最近访问频率的Count-Min Sketch，每个键对应4个计数器，取其中的最小值作为频率，计数器上限为15。
+ * 累计记录的次数达到样本大小时所有计数器减半，使频率反映最近的访问。
+ * 每个int保存8个4位计数器，通过CAS更新，记录访问不加锁，并发时频率是近似值
+ */
+class FrequencySketch {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb24f6b0d, 0x8f1a1f6d, 0x5a3c2b11};
+
+    private static final int MAX_COUNT = 15;
+
+    private final AtomicIntegerArray table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param expectedEntries 预计的键数量，取不小于该值的2的幂，每个键平均8个计数器。
+     *                        每次记录最多增加4个计数器，计数器过少时在减半之前就全部达到上限
+     */
+    FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(1024, Math.min(expectedEntries, 1 << 22)) - 1) << 1;
+        table = new AtomicIntegerArray(width);
+        mask = (width << 3) - 1;
+        sampleSize = 10 * width;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 键
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= tryIncrement(indexOf(hash, i));
+        }
+        // 只有恰好达到样本大小的线程执行减半，减半后计数回到样本大小的一半
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 估算最近的访问次数
+     *
+     * @param key 键
+     * @return 访问次数，不超过15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, count(indexOf(hash, i)));
+        }
+        return frequency;
+    }
+
+    /**
+     * 计数器加1，已达到上限时不变
+     *
+     * @return 是否增加
+     */
+    private boolean tryIncrement(int index) {
+        int word = index >>> 3;
+        int shift = (index & 7) << 2;
+        for (;;) {
+            int value = table.get(word);
+            if (((value >>> shift) & MAX_COUNT) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(word, value, value + (1 << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private int count(int index) {
+        return (table.get(index >>> 3) >>> ((index & 7) << 2)) & MAX_COUNT;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            // 每个4位计数器右移1位，清除从高位计数器移入的位
+            table.getAndUpdate(i, value -> (value >>> 1) & 0x77777777);
+        }
+        additions.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        int h = hash * SEEDS[i];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
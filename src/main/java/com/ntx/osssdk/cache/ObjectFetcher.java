@@ -0,0 +1,21 @@
+package com.ntx.osssdk.cache;
+
+import com.ntx.osssdk.model.ObjectContent;
+
+/**
+ * @ClassName ObjectFetcher
+ * @Author ntx
+ * @Description 缓存未命中或需要校验时从存储服务读取对象的方法
+ */
+@FunctionalInterface
+public interface ObjectFetcher {
+    /**
+     * 读取对象，给出ETag或修改时间时发送条件请求
+     *
+     * @param etag         缓存内容的ETag，为null时不带条件
+     * @param lastModified 缓存内容的修改时间（毫秒），etag为null且大于0时按修改时间判断
+     * @return 对象内容，内容未变化时返回null
+     * @throws Exception 异常
+     */
+    ObjectContent fetch(String etag, long lastModified) throws Exception;
+}
@@ -0,0 +1,490 @@
+package com.ntx.osssdk.cache;
+
+import com.ntx.osssdk.model.ObjectContent;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName OffHeapCache
+ * @Author ntx
+ * @Description 小对象的堆外内存缓存，内容按4KB的块保存在直接缓冲区中，不增加GC负担。总字节数达到上限时按最久未使用的顺序淘汰，
+ * 新对象的访问频率不高于被淘汰的对象时不缓存，避免只访问一次的对象挤出热点对象；同一对象同时只有一个请求读取存储服务，
+ * 其余请求等待后共享结果。缓存超过有效期后按ETag发送条件请求校验
+ */
+public class OffHeapCache {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    /**
+     * 每个直接缓冲区包含的块数，首次使用时分配
+     */
+    private static final int BLOCKS_PER_CHUNK = 4096;
+
+    private static final Loaded NOT_CACHED = new Loaded(null, null);
+
+    private final int totalBlocks;
+
+    private final ByteBuffer[] chunks;
+
+    /**
+     * 已释放的块
+     */
+    private final int[] freeBlocks;
+
+    private int freeCount;
+
+    /**
+     * 从未使用过的第一个块
+     */
+    private int nextBlock;
+
+    private final long maxObjectSize;
+
+    private final long ttlMillis;
+
+    /**
+     * 键 -> 缓存的对象，按访问顺序排列，最久未使用的在前
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在从存储服务读取的键
+     */
+    private final Map<String, CompletableFuture<Loaded>> loading = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    private long usedBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictedBytes = new LongAdder();
+
+    public OffHeapCache(long maxBytes, long maxObjectSize, long ttlMillis) {
+        if (maxBytes < BLOCK_SIZE || maxBytes / BLOCK_SIZE > Integer.MAX_VALUE || ttlMillis <= 0) {
+            throw new IllegalArgumentException("缓存大小上限必须不小于4KB，有效期必须大于0");
+        }
+        if (maxObjectSize > Integer.MAX_VALUE - 8) {
+            // 对象整体读入字节数组，还需要多读1个字节判断是否超过上限
+            throw new IllegalArgumentException("单个对象的大小上限不能超过" + (Integer.MAX_VALUE - 8) + "字节");
+        }
+        this.totalBlocks = (int) (maxBytes / BLOCK_SIZE);
+        this.chunks = new ByteBuffer[(totalBlocks + BLOCKS_PER_CHUNK - 1) / BLOCKS_PER_CHUNK];
+        this.freeBlocks = new int[totalBlocks];
+        this.maxObjectSize = Math.min(maxObjectSize, maxBytes);
+        this.ttlMillis = ttlMillis;
+        this.sketch = new FrequencySketch(totalBlocks);
+    }
+
+    /**
+     * 获取对象的输入流，缓存中没有、已过期或内容已变化时从存储服务读取，不超过单个对象大小上限的对象写入缓存
+     *
+     * @param key     缓存键
+     * @param fetcher 读取对象的方法
+     * @return 输入流，使用后需关闭
+     * @throws Exception 异常
+     */
+    public InputStream get(String key, ObjectFetcher fetcher) throws Exception {
+        sketch.increment(key);
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null && cached.validatedAt + ttlMillis > System.currentTimeMillis() && cached.retain()) {
+                hitCount.increment();
+                return new BlockInputStream(cached);
+            }
+        }
+        CompletableFuture<Loaded> loader = new CompletableFuture<>();
+        CompletableFuture<Loaded> running = loading.putIfAbsent(key, loader);
+        if (running == null) {
+            try {
+                return load(key, cached, fetcher, loader);
+            } finally {
+                loading.remove(key, loader);
+            }
+        }
+        InputStream shared = open(await(running));
+        if (shared != null) {
+            hitCount.increment();
+            return shared;
+        }
+        // 对象超过缓存上限，或共享的缓存已被淘汰
+        missCount.increment();
+        return fetcher.fetch(null, 0).getContent();
+    }
+
+    /**
+     * 使缓存失效，正在读取的输入流不受影响
+     *
+     * @param key 缓存键
+     */
+    public synchronized void invalidate(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            usedBytes -= entry.capacity();
+            entry.release();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取累计淘汰的字节数，按占用的块计算
+     *
+     * @return 字节数
+     */
+    public long getEvictedBytes() {
+        return evictedBytes.sum();
+    }
+
+    /**
+     * 获取缓存的对象占用的字节数，按占用的块计算
+     *
+     * @return 字节数
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 从存储服务读取对象：已有过期的缓存时发送条件请求，内容未变化只更新校验时间，否则读入内存后写入缓存
+     */
+    private InputStream load(String key, Entry cached, ObjectFetcher fetcher, CompletableFuture<Loaded> loader)
+            throws Exception {
+        ObjectContent content = null;
+        byte[] bytes;
+        try {
+            content = cached == null ? fetcher.fetch(null, 0) : fetcher.fetch(cached.etag, cached.lastModified);
+            if (content == null) {
+                // 内容未变化
+                cached.validatedAt = System.currentTimeMillis();
+                Loaded loaded = new Loaded(cached, null);
+                loader.complete(loaded);
+                InputStream in = open(loaded);
+                if (in != null) {
+                    hitCount.increment();
+                    return in;
+                }
+                content = fetcher.fetch(null, 0);
+            }
+            missCount.increment();
+            if (content.getSize() > maxObjectSize) {
+                loader.complete(NOT_CACHED);
+                return content.getContent();
+            }
+            bytes = readAtMost(content.getContent(), content.getSize());
+        } catch (Exception e) {
+            loader.completeExceptionally(e);
+            if (content != null) {
+                content.close();
+            }
+            throw e;
+        }
+        if (bytes.length > maxObjectSize) {
+            // 大小未知的对象超过上限，已读取的部分和剩余的内容拼接后返回
+            loader.complete(NOT_CACHED);
+            return new SequenceInputStream(new ByteArrayInputStream(bytes), content.getContent());
+        }
+        content.close();
+        Entry entry = store(key, bytes, content.getEtag(), content.getLastModified());
+        loader.complete(new Loaded(entry, bytes));
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * 把对象写入缓存。空间不足时从最久未使用的对象开始淘汰，遇到访问频率不低于新对象的对象时放弃写入
+     *
+     * @return 缓存的对象，未写入时为null
+     */
+    private Entry store(String key, byte[] bytes, String etag, long lastModified) {
+        int count = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] blocks = new int[count];
+        synchronized (this) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                usedBytes -= previous.capacity();
+                previous.release();
+            }
+            int frequency = sketch.frequency(key);
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (available() < count && iterator.hasNext()) {
+                Entry victim = iterator.next();
+                if (sketch.frequency(victim.key) >= frequency) {
+                    return null;
+                }
+                iterator.remove();
+                usedBytes -= victim.capacity();
+                evictedBytes.add(victim.capacity());
+                victim.release();
+            }
+            if (available() < count) {
+                // 被淘汰的对象仍在读取中，块尚未释放
+                return null;
+            }
+            for (int i = 0; i < count; i++) {
+                blocks[i] = allocate();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int offset = i * BLOCK_SIZE;
+            block(blocks[i]).put(bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+        }
+        Entry entry = new Entry(key, blocks, bytes.length, etag, lastModified);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                usedBytes -= previous.capacity();
+                previous.release();
+            }
+            usedBytes += entry.capacity();
+        }
+        return entry;
+    }
+
+    /**
+     * 打开共享的读取结果
+     *
+     * @return 输入流，对象未缓存或缓存已被淘汰时为null
+     */
+    private InputStream open(Loaded loaded) {
+        if (loaded.entry != null && loaded.entry.retain()) {
+            return new BlockInputStream(loaded.entry);
+        }
+        return loaded.bytes == null ? null : new ByteArrayInputStream(loaded.bytes);
+    }
+
+    private int available() {
+        return freeCount + totalBlocks - nextBlock;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeBlocks[--freeCount];
+        }
+        int block = nextBlock++;
+        int chunk = block / BLOCKS_PER_CHUNK;
+        if (chunks[chunk] == null) {
+            int blocks = Math.min(BLOCKS_PER_CHUNK, totalBlocks - chunk * BLOCKS_PER_CHUNK);
+            chunks[chunk] = ByteBuffer.allocateDirect(blocks * BLOCK_SIZE);
+        }
+        return block;
+    }
+
+    private synchronized void free(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * 获取块对应的缓冲区视图，位置和上限为块的起止位置
+     */
+    private ByteBuffer block(int block) {
+        ByteBuffer buffer = chunks[block / BLOCKS_PER_CHUNK].duplicate();
+        int position = (block % BLOCKS_PER_CHUNK) * BLOCK_SIZE;
+        buffer.limit(position + BLOCK_SIZE);
+        buffer.position(position);
+        return buffer;
+    }
+
+    /**
+     * 读取整个对象，超过单个对象大小上限时只读取上限加1个字节
+     */
+    private byte[] readAtMost(InputStream inputStream, long size) throws IOException {
+        int limit = (int) maxObjectSize + 1;
+        byte[] buffer = new byte[size >= 0 ? (int) Math.min(size, limit) : Math.min(limit, 8192)];
+        int length = 0;
+        while (length < limit) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(limit, (long) buffer.length * 2));
+            }
+            int n = inputStream.read(buffer, length, buffer.length - length);
+            if (n == -1) {
+                break;
+            }
+            length += n;
+        }
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    private static Loaded await(CompletableFuture<Loaded> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 一次读取的结果，供等待的请求共享
+     */
+    private static class Loaded {
+        /**
+         * 缓存的对象，未写入缓存时为null
+         */
+        private final Entry entry;
+        /**
+         * 读取到的内容，内容未变化或超过大小上限时为null
+         */
+        private final byte[] bytes;
+
+        private Loaded(Entry entry, byte[] bytes) {
+            this.entry = entry;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 缓存的对象。缓存本身持有一个引用，每个输入流持有一个引用，引用全部释放后块才能被重用
+     */
+    private class Entry {
+        private final String key;
+        private final int[] blocks;
+        private final int size;
+        private final String etag;
+        private final long lastModified;
+        private final AtomicInteger references = new AtomicInteger(1);
+        /**
+         * 上次与存储服务校验的时间
+         */
+        private volatile long validatedAt = System.currentTimeMillis();
+
+        private Entry(String key, int[] blocks, int size, String etag, long lastModified) {
+            this.key = key;
+            this.blocks = blocks;
+            this.size = size;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private long capacity() {
+            return (long) blocks.length * BLOCK_SIZE;
+        }
+
+        /**
+         * 增加引用，块已释放时失败
+         */
+        private boolean retain() {
+            for (;;) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                free(blocks);
+            }
+        }
+    }
+
+    /**
+     * 按顺序读取对象的各个块，关闭时释放引用
+     */
+    private class BlockInputStream extends InputStream {
+        private final Entry entry;
+        private ByteBuffer current;
+        private int nextBlock;
+        private int remaining;
+        private boolean closed;
+
+        private BlockInputStream(Entry entry) {
+            this.entry = entry;
+            this.remaining = entry.size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!advance()) {
+                return -1;
+            }
+            remaining--;
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!advance()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && advance()) {
+                int step = (int) Math.min(n - skipped, current.remaining());
+                current.position(current.position() + step);
+                remaining -= step;
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return closed ? 0 : remaining;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                entry.release();
+            }
+        }
+
+        /**
+         * 当前块读完时切换到下一个块
+         *
+         * @return 是否还有内容
+         */
+        private boolean advance() throws IOException {
+            if (closed) {
+                throw new IOException("输入流已关闭");
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            if (current == null || !current.hasRemaining()) {
+                current = block(entry.blocks[nextBlock++]);
+                current.limit(current.position() + Math.min(BLOCK_SIZE, remaining));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.ntx.osssdk.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * @ClassName TtlCache
+ * @Author ntx
+ * @Description 带过期时间的有界缓存，读取不加锁，写入后可主动失效。
+ * 同一个键并发未命中时只加载一次，失效之前开始的加载结果不写入缓存
+ */
+public class TtlCache<K, V> {
+
+    private final long ttlMillis;
+
+    private final int maxSize;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 正在加载的键，失效或写入时移除，加载完成后只有仍在其中的结果写入缓存
+     */
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public TtlCache(long ttlMillis, int maxSize) {
+        if (ttlMillis <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("缓存过期时间和容量必须大于0");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取缓存值，未命中或已过期时加载并缓存，加载失败时不缓存。
+     * 同一个键正在加载时等待该次加载的结果
+     *
+     * @param key    键
+     * @param loader 加载方法
+     * @return 缓存值
+     * @throws Exception 加载异常
+     */
+    public V get(K key, Loader<K, V> loader) throws Exception {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expireAt > now) {
+            hitCount.increment();
+            return entry.value;
+        }
+        missCount.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> current = loading.putIfAbsent(key, future);
+        if (current != null) {
+            return await(current);
+        }
+        V value;
+        try {
+            value = loader.load(key);
+        } catch (Throwable e) {
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        if (loading.get(key) == future) {
+            store(key, value);
+            if (!loading.remove(key, future)) {
+                // 写入期间该键被失效，丢弃可能已过期的值
+                entries.remove(key);
+            }
+        }
+        future.complete(value);
+        return value;
+    }
+
+    /**
+     * 获取未过期的缓存值，不存在时返回null，不计入命中率
+     *
+     * @param key 键
+     * @return 缓存值
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expireAt > System.currentTimeMillis() ? entry.value : null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key   键
+     * @param value 值，为null时使该键失效
+     */
+    public void put(K key, V value) {
+        loading.remove(key);
+        store(key, value);
+    }
+
+    private void store(K key, V value) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict(now);
+        }
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+    }
+
+    /**
+     * 使指定键失效，数据被修改或删除后调用
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        loading.remove(key);
+        entries.remove(key);
+    }
+
+    /**
+     * 使缓存值满足条件的键失效，需要遍历所有缓存
+     *
+     * @param predicate 条件
+     */
+    public void invalidateValues(Predicate<? super V> predicate) {
+        // 加载中的值无法判断，全部丢弃
+        loading.clear();
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        loading.clear();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 缓存命中率
+     *
+     * @return 0~1之间的命中率
+     */
+    public double getHitRatio() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 等待其他线程的加载结果，加载失败时抛出相同的异常
+     */
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 先清理已过期的缓存，仍然超过容量时按遍历顺序淘汰
+     */
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expireAt <= now);
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 缓存值加载方法
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        private Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ntx.osssdk.cache;
+
+import com.qiniu.util.Auth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName UploadTokenCache
+ * @Author ntx
+ * @Description 七牛云上传凭证缓存，按桶/作用域缓存凭证并在过期前刷新
+ */
+public class UploadTokenCache {
+
+    /**
+     * 缓存的作用域超过该数量时清理已过期的凭证
+     */
+    private static final int MAX_SIZE = 1024;
+
+    private final Auth auth;
+
+    /**
+     * 凭证有效期（秒）
+     */
+    private final long expireSeconds;
+
+    /**
+     * 提前刷新的时间（毫秒）
+     */
+    private final long refreshAheadMillis;
+
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public UploadTokenCache(Auth auth, long expireSeconds, long refreshAheadSeconds) {
+        if (refreshAheadSeconds >= expireSeconds) {
+            throw new IllegalArgumentException("凭证提前刷新时间必须小于凭证有效期");
+        }
+        this.auth = auth;
+        this.expireSeconds = expireSeconds;
+        this.refreshAheadMillis = refreshAheadSeconds * 1000;
+    }
+
+    /**
+     * 获取桶级别的上传凭证
+     *
+     * @param bucket 桶名
+     * @return 上传凭证
+     */
+    public String get(String bucket) {
+        return get(bucket, null);
+    }
+
+    /**
+     * 获取指定作用域的上传凭证，key为空时为桶级别凭证
+     *
+     * @param bucket 桶名
+     * @param key    对象名称
+     * @return 上传凭证
+     */
+    public String get(String bucket, String key) {
+        String scope = key == null ? bucket : bucket + ":" + key;
+        long now = System.currentTimeMillis();
+        Token token = tokens.get(scope);
+        if (token != null && token.isFresh(now)) {
+            hitCount.increment();
+            return token.value;
+        }
+        missCount.increment();
+        if (tokens.size() >= MAX_SIZE) {
+            tokens.values().removeIf(t -> !t.isFresh(now));
+        }
+        // 同一作用域并发未命中时只签发一次
+        return tokens.compute(scope, (k, old) -> old != null && old.isFresh(now) ? old
+                : new Token(auth.uploadToken(bucket, key, expireSeconds, null),
+                now + expireSeconds * 1000 - refreshAheadMillis)).value;
+    }
+
+    /**
+     * 清空缓存的凭证
+     */
+    public void clear() {
+        tokens.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 缓存命中率
+     *
+     * @return 0~1之间的命中率
+     */
+    public double getHitRatio() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static class Token {
+        private final String value;
+        /**
+         * 需要刷新的时间点
+         */
+        private final long refreshAt;
+
+        private Token(String value, long refreshAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+        }
+
+        private boolean isFresh(long now) {
+            return now < refreshAt;
+        }
+    }
+}
@@ -0,0 +1,1018 @@
+package com.ntx.osssdk.client;
+
+import com.ntx.osssdk.cache.DiskCache;
+import com.ntx.osssdk.cache.OffHeapCache;
+import com.ntx.osssdk.cache.TtlCache;
+import com.ntx.osssdk.key.DefaultObjectKeyGenerator;
+import com.ntx.osssdk.key.ObjectKeyGenerator;
+import com.ntx.osssdk.listing.ObjectPage;
+import com.ntx.osssdk.listing.PrefetchingIterator;
+import com.ntx.osssdk.metrics.OssMetrics;
+import com.ntx.osssdk.model.BatchDeleteResult;
+import com.ntx.osssdk.model.BatchUploadResult;
+import com.ntx.osssdk.model.ObjectContent;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedMultipartUpload;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.model.UploadItem;
+import com.ntx.osssdk.multipart.MultipartOperations;
+import com.ntx.osssdk.multipart.MultipartUploadTemplate;
+import com.ntx.osssdk.multipart.PartLimits;
+import com.ntx.osssdk.multipart.PartSizePlanner;
+import com.ntx.osssdk.multipart.UploadedPart;
+import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.throttle.BandwidthLimiter;
+import com.ntx.osssdk.utils.CountingInputStream;
+import com.ntx.osssdk.utils.DigestUtil;
+import com.ntx.osssdk.utils.FileChannelUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * @ClassName AbstractOssClient
+ * @Author ntx
+ * @Description Oss存储客户端公共实现，提供基于同步方法的异步接口、批量上传、批量删除、分页列举、元数据缓存、内容去重和带宽限制
+ */
+@Slf4j
+public abstract class AbstractOssClient implements OssClient {
+
+    @Resource
+    protected Properties properties;
+
+    /**
+     * 默认的传输线程池
+     */
+    @Resource
+    private Executor ossTransferExecutor;
+
+    /**
+     * 对象名称生成策略
+     */
+    @Resource
+    protected ObjectKeyGenerator objectKeyGenerator;
+
+    /**
+     * 传输指标
+     */
+    @Resource
+    protected OssMetrics ossMetrics;
+
+    /**
+     * 带宽限制
+     */
+    @Resource
+    protected BandwidthLimiter bandwidthLimiter;
+
+    /**
+     * 分片大小计算
+     */
+    @Resource
+    protected PartSizePlanner partSizePlanner;
+
+    /**
+     * 对象元数据缓存
+     */
+    private TtlCache<String, ObjectStat> statCache;
+
+    /**
+     * 本地摘要索引，按内容摘要生成的对象名称 -> 已保存该内容的对象名称
+     */
+    private TtlCache<String, String> digestIndex;
+
+    /**
+     * 下载地址和分片地址的签名缓存，在剩余有效期不足refresh-ahead-seconds前复用
+     */
+    private TtlCache<String, PresignedUrl> presignCache;
+
+    /**
+     * 下载的本地磁盘缓存，未开启时为null
+     */
+    private DiskCache downloadCache;
+
+    /**
+     * getObject使用的小对象堆外内存缓存，未开启时为null
+     */
+    private OffHeapCache objectCache;
+
+    /**
+     * 多存储服务中的存储服务名称，为null时使用存储服务类型
+     */
+    private String backendName;
+
+    @PostConstruct
+    public void initCaches() throws IOException {
+        Properties.Cache cache = properties.getCache();
+        statCache = new TtlCache<>(cache.getStatTtlSeconds() * 1000, cache.getStatMaxSize());
+        ossMetrics.bindCache(provider(), backendName(), "stat", statCache::getHitCount, statCache::getMissCount);
+        Properties.Dedup dedup = properties.getDedup();
+        digestIndex = new TtlCache<>(dedup.getIndexTtlSeconds() * 1000, dedup.getIndexMaxSize());
+        ossMetrics.bindCache(provider(), backendName(), "digest", digestIndex::getHitCount, digestIndex::getMissCount);
+        Properties.Presign presign = properties.getPresign();
+        // 提前刷新的时间不超过有效期的一半，有效期较短时签名仍可复用
+        long refreshAhead = Math.min(presign.getRefreshAheadSeconds(), presign.getExpireSeconds() / 2);
+        long presignTtl = Math.max(1, presign.getExpireSeconds() - refreshAhead) * 1000;
+        presignCache = new TtlCache<>(presignTtl, presign.getCacheMaxSize());
+        ossMetrics.bindCache(provider(), backendName(), "presign",
+                presignCache::getHitCount, presignCache::getMissCount);
+        Properties.DownloadCache download = properties.getDownloadCache();
+        if (download.isEnabled()) {
+            downloadCache = new DiskCache(Paths.get(download.getDir(), provider(), properties.getBucket()),
+                    download.getMaxBytes(), download.getRevalidateSeconds() * 1000,
+                    properties.getDownload().getBufferSize());
+            ossMetrics.bindCache(provider(), backendName(), "download",
+                    downloadCache::getHitCount, downloadCache::getMissCount);
+            ossMetrics.bindCacheBytes(provider(), backendName(), "download", downloadCache::getTotalBytes,
+                    downloadCache::getEvictedBytes);
+        }
+        Properties.ObjectCache object = properties.getObjectCache();
+        if (object.isEnabled()) {
+            objectCache = new OffHeapCache(object.getMaxBytes(), object.getMaxObjectSize(),
+                    object.getTtlSeconds() * 1000);
+            ossMetrics.bindCache(provider(), backendName(), "object",
+                    objectCache::getHitCount, objectCache::getMissCount);
+            ossMetrics.bindCacheBytes(provider(), backendName(), "object",
+                    objectCache::getUsedBytes, objectCache::getEvictedBytes);
+        }
+    }
+
+    /**
+     * 使用独立的配置，需在依赖注入之后、初始化之前调用，用于多存储服务中的各个存储服务
+     *
+     * @param properties 配置
+     */
+    public void setProperties(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 设置存储服务名称，作为缓存指标的标签区分同类型的多个存储服务，需在初始化之前调用
+     *
+     * @param backendName 存储服务名称
+     */
+    public void setBackendName(String backendName) {
+        this.backendName = backendName;
+    }
+
+    /**
+     * 存储服务名称，未设置时为存储服务类型
+     *
+     * @return 存储服务名称
+     */
+    protected String backendName() {
+        return backendName == null ? provider() : backendName;
+    }
+
+    /**
+     * 获取对象元数据缓存，可用于查看命中情况或主动失效
+     *
+     * @return 缓存
+     */
+    public TtlCache<String, ObjectStat> getStatCache() {
+        return statCache;
+    }
+
+    /**
+     * 获取下载的本地磁盘缓存，可用于查看命中情况或主动失效
+     *
+     * @return 缓存，未开启时为null
+     */
+    public DiskCache getDownloadCache() {
+        return downloadCache;
+    }
+
+    /**
+     * 获取小对象的堆外内存缓存，可用于查看命中情况或主动失效
+     *
+     * @return 缓存，未开启时为null
+     */
+    public OffHeapCache getObjectCache() {
+        return objectCache;
+    }
+
+    @Override
+    public String upload(Path file) throws Exception {
+        long size = checkFile(file);
+        String contentType = contentType(file);
+        return uploadObject("upload", file, (objectName, inputStream) -> putObject(objectName, inputStream, size, contentType));
+    }
+
+    @Override
+    public String upload(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception {
+        if (inputStream == null || size <= 0) {
+            throw new RuntimeException("文件大小为空");
+        }
+        return uploadObject("upload", originalFilename, inputStream, size,
+                (objectName, in) -> putObject(objectName, in, size, contentType));
+    }
+
+    @Override
+    public String uploadFile(Path file) throws Exception {
+        long size = checkFile(file);
+        String contentType = contentType(file);
+        // 同一文件再次上传时根据断点记录续传，文件被修改后不再续传
+        String checkpointKey = MultipartUploadTemplate.checkpointKey(provider(), properties.getBucket(),
+                file.toAbsolutePath(), size, Files.getLastModifiedTime(file).toMillis());
+        // 分片直接从文件读取，不使用传入的输入流
+        return uploadObject("uploadFile", file,
+                (objectName, inputStream) -> putMultipartFile(objectName, file, size, contentType, checkpointKey));
+    }
+
+    @Override
+    public String uploadFile(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception {
+        if (inputStream == null || size <= 0) {
+            throw new RuntimeException("文件大小为空");
+        }
+        String checkpointKey = MultipartUploadTemplate.checkpointKey(provider(), properties.getBucket(), originalFilename, size);
+        return uploadObject("uploadFile", originalFilename, inputStream, size,
+                (objectName, in) -> putMultipartObject(objectName, in, size, contentType, checkpointKey));
+    }
+
+    @Override
+    public String uploadStream(InputStream inputStream, String originalFilename, String contentType) throws Exception {
+        if (inputStream == null) {
+            throw new RuntimeException("文件大小为空");
+        }
+        // 先读取一个最小分片大小的数据，流在此之前结束时只发起一次普通上传
+        byte[] head = new byte[(int) properties.getMultipart().getPartSize()];
+        int length = readFully(inputStream, head);
+        if (length == 0) {
+            throw new RuntimeException("文件大小为空");
+        }
+        if (length < head.length) {
+            return upload(new ByteArrayInputStream(head, 0, length), length, originalFilename, contentType);
+        }
+        // 大小未知，边读取边上传分片，内存中最多保留parallelism个分片，不写本地文件
+        InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(head), inputStream);
+        return uploadObject("uploadStream", originalFilename, remaining, -1,
+                (objectName, in) -> putMultipartObject(objectName, in, -1, contentType, null));
+    }
+
+    @Override
+    public PresignedUrl presignUpload(String originalFilename, String contentType) throws Exception {
+        // 每次生成新的对象名称，签名不缓存
+        return presignObject(objectKeyGenerator.generate(originalFilename), "PUT", contentType,
+                properties.getPresign().getExpireSeconds());
+    }
+
+    @Override
+    public PresignedUrl presignDownload(String objectName) throws Exception {
+        if (!StringUtils.hasLength(objectName)) {
+            throw new RuntimeException("对象名称为空");
+        }
+        String object = objectKey(objectName);
+        return presignCache.get("GET|" + object,
+                key -> presignObject(object, "GET", null, properties.getPresign().getExpireSeconds()));
+    }
+
+    @Override
+    public PresignedMultipartUpload initiatePresignedMultipart(String originalFilename, String contentType, long size) throws Exception {
+        if (size <= 0) {
+            throw new RuntimeException("文件大小为空");
+        }
+        long partSize = partSizePlanner.partSize(size, partLimits());
+        String objectName = objectKeyGenerator.generate(originalFilename);
+        String uploadId = multipartOperations(contentType).initiate(objectName);
+        return new PresignedMultipartUpload(objectName, uploadId, partSize, (int) ((size + partSize - 1) / partSize));
+    }
+
+    @Override
+    public PresignedUrl presignPart(String objectName, String uploadId, int partNumber) throws Exception {
+        if (partNumber < 1 || partNumber > partLimits().getMaxParts()) {
+            throw new RuntimeException("分片号不合法：" + partNumber);
+        }
+        // 客户端重试同一分片时复用签名
+        return presignCache.get("PART|" + objectName + '|' + uploadId + '|' + partNumber,
+                key -> presignPartUpload(objectName, uploadId, partNumber, properties.getPresign().getExpireSeconds()));
+    }
+
+    @Override
+    public String completePresignedMultipart(String objectName, String uploadId) throws Exception {
+        MultipartOperations operations = multipartOperations(null);
+        // 以服务端记录的分片为准，客户端不需要回传ETag
+        Map<Integer, String> uploaded = operations.listParts(objectName, uploadId);
+        if (uploaded.isEmpty()) {
+            throw new RuntimeException("没有已上传的分片：" + objectName);
+        }
+        List<UploadedPart> parts = new ArrayList<>(uploaded.size());
+        uploaded.forEach((partNumber, etag) -> parts.add(new UploadedPart(partNumber, etag, 0, null)));
+        parts.sort(Comparator.comparingInt(UploadedPart::getPartNumber));
+        operations.complete(objectName, uploadId, parts);
+        statCache.invalidate(objectName);
+        return uploaded(objectName);
+    }
+
+    @Override
+    public void abortPresignedMultipart(String objectName, String uploadId) throws Exception {
+        multipartOperations(null).abort(objectName, uploadId);
+    }
+
+    /**
+     * 读满缓冲区或读到流末尾
+     *
+     * @return 读取的字节数
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 校验本地文件
+     *
+     * @return 文件大小
+     */
+    private static long checkFile(Path file) throws IOException {
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new RuntimeException("上传的文件不存在：" + file);
+        }
+        long size = Files.size(file);
+        if (size == 0) {
+            throw new RuntimeException("文件大小为空");
+        }
+        return size;
+    }
+
+    /**
+     * 根据文件名推断文件类型，无法推断时为application/octet-stream
+     */
+    private static String contentType(Path file) throws IOException {
+        String contentType = Files.probeContentType(file);
+        return contentType == null ? "application/octet-stream" : contentType;
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(MultipartFile file) {
+        return uploadAsync(file, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(MultipartFile file, Executor executor) {
+        return supplyAsync(() -> upload(file), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file) {
+        return uploadFileAsync(file, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, Executor executor) {
+        return supplyAsync(() -> uploadFile(file), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName) {
+        return downloadAsync(downloadPath, objectName, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName, Executor executor) {
+        return supplyAsync(() -> download(downloadPath, objectName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName) {
+        return downloadFileAsync(downloadPath, objectName, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName, Executor executor) {
+        return supplyAsync(() -> downloadFile(downloadPath, objectName), executor);
+    }
+
+    @Override
+    public List<BatchUploadResult> uploadBatch(List<MultipartFile> files) {
+        List<String> names = new ArrayList<>(files.size());
+        List<Callable<String>> tasks = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            names.add(file == null ? null : file.getOriginalFilename());
+            tasks.add(() -> upload(file));
+        }
+        return runBatch(names, tasks);
+    }
+
+    @Override
+    public List<BatchUploadResult> uploadStreamBatch(List<UploadItem> items) {
+        List<String> names = new ArrayList<>(items.size());
+        List<Callable<String>> tasks = new ArrayList<>(items.size());
+        for (UploadItem item : items) {
+            names.add(item.getOriginalFilename());
+            tasks.add(() -> {
+                try (InputStream inputStream = item.getInputStream()) {
+                    if (inputStream == null || item.getSize() < 0) {
+                        throw new RuntimeException("上传数据项缺少输入流或文件大小");
+                    }
+                    return uploadObject("upload", item.getOriginalFilename(), inputStream, item.getSize(),
+                            (objectName, in) -> putObject(objectName, in, item.getSize(), item.getContentType()));
+                }
+            });
+        }
+        return runBatch(names, tasks);
+    }
+
+    @Override
+    public ObjectStat stat(String objectName) throws Exception {
+        return statCache.get(objectKey(objectName), this::statObject);
+    }
+
+    @Override
+    public InputStream getObject(String objectName) throws Exception {
+        if (!StringUtils.hasLength(objectName)) {
+            throw new RuntimeException("对象名称为空");
+        }
+        String object = objectKey(objectName);
+        if (objectCache == null) {
+            return openThrottled(object, null, 0).getContent();
+        }
+        return objectCache.get(object, (etag, lastModified) -> openThrottled(object, etag, lastModified));
+    }
+
+    @Override
+    public BatchDeleteResult delete(Collection<String> objectNames) {
+        // 上传接口返回访问路径，统一去掉前缀后删除，失败结果仍按调用方传入的名称返回
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String objectName : objectNames) {
+            names.putIfAbsent(objectKey(objectName), objectName);
+        }
+        List<String> keys = new ArrayList<>(names.keySet());
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        List<String> deletable = new ArrayList<>(keys.size());
+        Properties.Dedup dedup = properties.getDedup();
+        for (String key : keys) {
+            if (dedup.isEnabled() && StringUtils.hasLength(dedup.getPrefix()) && key.startsWith(dedup.getPrefix())) {
+                // 按内容命名的对象由上传相同内容的所有调用方共享，删除后其他调用方的访问路径失效
+                log.warn("==>按内容去重的对象可能被多个上传共享，不删除：{}", key);
+                errors.put(key, "按内容去重的对象可能被多个上传共享，不能删除");
+            } else {
+                deletable.add(key);
+            }
+        }
+        invalidate(deletable);
+        int batchSize = maxDeleteBatchSize();
+        int batches = (deletable.size() + batchSize - 1) / batchSize;
+        CompletableFuture<?>[] futures = new CompletableFuture[batches];
+        Semaphore permits = new Semaphore(Math.max(1, properties.getBatch().getConcurrency()));
+        for (int i = 0; i < batches; i++) {
+            List<String> batch = deletable.subList(i * batchSize, Math.min(deletable.size(), (i + 1) * batchSize));
+            permits.acquireUninterruptibly();
+            futures[i] = supplyAsync(() -> deleteObjects(batch), ossTransferExecutor).handle((failed, e) -> {
+                permits.release();
+                if (e != null) {
+                    // 整批请求失败时，该批次的对象全部记为失败
+                    String message = errorMessage(e);
+                    batch.forEach(key -> errors.put(key, message));
+                } else {
+                    errors.putAll(failed);
+                }
+                return null;
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        // 删除期间并发的读取可能把旧内容重新写入缓存，删除完成后再次清除
+        invalidate(deletable);
+        Map<String, String> ordered = new LinkedHashMap<>();
+        for (String key : keys) {
+            String error = errors.get(key);
+            if (error != null) {
+                ordered.put(names.get(key), error);
+            }
+        }
+        return new BatchDeleteResult(keys.size(), keys.size() - ordered.size(), ordered);
+    }
+
+    /**
+     * 清除对象的元数据缓存、下载缓存、对象缓存和摘要索引
+     *
+     * @param keys 对象名称
+     */
+    private void invalidate(List<String> keys) {
+        for (String key : keys) {
+            statCache.invalidate(key);
+            if (downloadCache != null) {
+                downloadCache.invalidate(key);
+            }
+            if (objectCache != null) {
+                objectCache.invalidate(key);
+            }
+        }
+        if (properties.getDedup().isEnabled() && digestIndex.size() > 0) {
+            Set<String> deleted = new HashSet<>(keys);
+            digestIndex.invalidateValues(deleted::contains);
+        }
+    }
+
+    /**
+     * 单次批量删除请求可包含的最大对象数
+     *
+     * @return 最大对象数
+     */
+    protected int maxDeleteBatchSize() {
+        return 1000;
+    }
+
+    /**
+     * 通过一次批量删除请求删除对象
+     *
+     * @param objectNames 对象名称，数量不超过maxDeleteBatchSize
+     * @return 删除失败的对象名称及原因
+     * @throws Exception 整个请求失败
+     */
+    protected abstract Map<String, String> deleteObjects(List<String> objectNames) throws Exception;
+
+    /**
+     * 在服务端复制对象，不经过本地，目标对象已存在时覆盖
+     *
+     * @param source 源对象名称
+     * @param target 目标对象名称
+     * @throws Exception 异常
+     */
+    protected abstract void copyObject(String source, String target) throws Exception;
+
+    @Override
+    public Stream<ObjectSummary> listObjects(String prefix) {
+        return listObjects(prefix, null, 1000);
+    }
+
+    @Override
+    public Stream<ObjectSummary> listObjects(String prefix, String delimiter, int pageSize) {
+        int limit = Math.min(1000, Math.max(1, pageSize));
+        return PrefetchingIterator.stream(marker -> listPage(prefix, delimiter, limit, marker), ossTransferExecutor);
+    }
+
+    /**
+     * 上传文件。开启去重时，不超过digest-ahead-max-size的文件先计算摘要并按摘要命名，
+     * 内容已存在时直接返回已有对象的访问路径；更大的文件边上传边计算摘要
+     *
+     * @param operation 操作，用作指标标签
+     * @param file      上传的文件
+     * @param uploader  上传方法
+     * @return url
+     * @throws Exception 异常
+     */
+    protected String uploadObject(String operation, MultipartFile file, ObjectUploader uploader) throws Exception {
+        long size = file.getSize();
+        return uploadObject(operation, file.getOriginalFilename(), size, file,
+                size <= properties.getDedup().getDigestAheadMaxSize(), uploader);
+    }
+
+    /**
+     * 上传本地文件。本地文件可重复读取，开启去重时总是先计算摘要并按摘要命名
+     *
+     * @param operation 操作，用作指标标签
+     * @param file      本地文件
+     * @param uploader  上传方法
+     * @return url
+     * @throws Exception 异常
+     */
+    protected String uploadObject(String operation, Path file, ObjectUploader uploader) throws Exception {
+        return uploadObject(operation, file.getFileName().toString(), Files.size(file), new FileSystemResource(file),
+                true, uploader);
+    }
+
+    private String uploadObject(String operation, String originalFilename, long size, InputStreamSource source,
+                                boolean digestAhead, ObjectUploader uploader) throws Exception {
+        if (!properties.getDedup().isEnabled() || !digestAhead) {
+            try (InputStream inputStream = source.getInputStream()) {
+                return uploadObject(operation, originalFilename, inputStream, size, uploader);
+            }
+        }
+        // 数据源可重复读取，先读一遍本地数据计算摘要
+        String contentKey;
+        try (InputStream inputStream = source.getInputStream()) {
+            contentKey = contentKey(DigestUtil.sha256Hex(inputStream), originalFilename);
+        }
+        String existing = findExisting(contentKey, size);
+        if (existing != null) {
+            ossMetrics.recordDedup(provider(), operation, "skipped", size);
+            return uploaded(existing);
+        }
+        String objectName;
+        try (InputStream inputStream = bandwidthLimiter.throttleUpload(source.getInputStream(), size)) {
+            objectName = record(operation, () -> size, () -> uploader.upload(contentKey, inputStream));
+        }
+        digestIndex.put(contentKey, objectName);
+        ossMetrics.recordDedup(provider(), operation, "stored", size);
+        return uploaded(objectName);
+    }
+
+    /**
+     * 上传输入流。开启去重时边上传边计算摘要，内容已存在时删除新上传的副本并返回已有对象的访问路径
+     *
+     * @param operation        操作，用作指标标签
+     * @param originalFilename 原始文件名
+     * @param inputStream      输入流，由调用方关闭
+     * @param size             文件大小，未知时为-1
+     * @param uploader         上传方法
+     * @return url
+     * @throws Exception 异常
+     */
+    protected String uploadObject(String operation, String originalFilename, InputStream inputStream, long size,
+                                  ObjectUploader uploader) throws Exception {
+        String generated = objectKeyGenerator.generate(originalFilename);
+        // 大小未知时按实际读取的字节数记录指标和比较内容
+        CountingInputStream counter = size < 0 ? new CountingInputStream(inputStream) : null;
+        LongSupplier bytes = counter == null ? () -> size : counter::getCount;
+        InputStream throttled = bandwidthLimiter.throttleUpload(counter == null ? inputStream : counter, size);
+        if (!properties.getDedup().isEnabled()) {
+            return uploaded(record(operation, bytes, () -> uploader.upload(generated, throttled)));
+        }
+        DigestInputStream digestStream = DigestUtil.digesting(throttled);
+        String objectName = record(operation, bytes, () -> uploader.upload(generated, digestStream));
+        String contentKey = contentKey(DigestUtil.hex(digestStream.getMessageDigest().digest()), originalFilename);
+        String existing = findExisting(contentKey, bytes.getAsLong());
+        if (existing == null || existing.equals(objectName)) {
+            String stored = existing == null ? moveToContentKey(objectName, contentKey) : objectName;
+            digestIndex.put(contentKey, stored);
+            ossMetrics.recordDedup(provider(), operation, "stored", bytes.getAsLong());
+            return uploaded(stored);
+        }
+        try {
+            Map<String, String> failed = deleteObjects(Collections.singletonList(objectName));
+            if (!failed.isEmpty()) {
+                log.warn("==>删除重复内容失败，保留新上传的对象：{}，原因：{}", objectName, failed.get(objectName));
+                return uploaded(objectName);
+            }
+        } catch (Exception e) {
+            log.warn("==>删除重复内容失败，保留新上传的对象：{}", objectName, e);
+            return uploaded(objectName);
+        }
+        ossMetrics.recordDedup(provider(), operation, "removed", bytes.getAsLong());
+        return uploaded(existing);
+    }
+
+    /**
+     * 把边上传边计算摘要的对象在服务端复制到按摘要命名的位置并删除原对象，重启后或其他实例也能按名称查到该内容。
+     * 复制或删除失败时保留原对象
+     *
+     * @return 最终保存内容的对象名称
+     */
+    private String moveToContentKey(String objectName, String contentKey) {
+        try {
+            copyObject(objectName, contentKey);
+        } catch (Exception e) {
+            log.warn("==>复制到摘要命名的对象失败，保留新上传的对象：{}", objectName, e);
+            return objectName;
+        }
+        try {
+            Map<String, String> failed = deleteObjects(Collections.singletonList(objectName));
+            if (!failed.isEmpty()) {
+                log.warn("==>删除临时对象失败：{}，原因：{}", objectName, failed.get(objectName));
+            }
+        } catch (Exception e) {
+            log.warn("==>删除临时对象失败：{}", objectName, e);
+        }
+        return contentKey;
+    }
+
+    /**
+     * 上传完成后获取访问路径
+     */
+    private String uploaded(String objectName) {
+        String url = getUrl(objectName);
+        log.info("==>上传文件至{}成功，访问路径：{}", provider(), url);
+        return url;
+    }
+
+    /**
+     * 按内容摘要生成对象名称，保留原始文件的后缀
+     */
+    private String contentKey(String digest, String originalFilename) {
+        return properties.getDedup().getPrefix() + digest + DefaultObjectKeyGenerator.suffix(originalFilename);
+    }
+
+    /**
+     * 查找已保存该内容的对象，先查本地摘要索引，未命中时查询服务端是否存在同名且大小一致的对象
+     *
+     * @param contentKey 按内容摘要生成的对象名称
+     * @param size       文件大小
+     * @return 对象名称，不存在时返回null
+     */
+    private String findExisting(String contentKey, long size) {
+        try {
+            return digestIndex.get(contentKey, key -> stat(key).getSize() == size ? key : null);
+        } catch (Exception e) {
+            // 对象不存在或查询失败时按新内容上传
+            return null;
+        }
+    }
+
+    /**
+     * 存储服务名称，用作指标的provider标签
+     *
+     * @return minio、aliyun、qiniu
+     */
+    protected abstract String provider();
+
+    /**
+     * 执行一次传输并记录耗时、字节数和进行中的传输数
+     *
+     * @param operation 操作
+     * @param bytes     传输成功后的字节数
+     * @param task      传输任务
+     * @return 任务结果
+     * @throws Exception 传输异常
+     */
+    protected <T> T record(String operation, LongSupplier bytes, Callable<T> task) throws Exception {
+        String provider = provider();
+        long start = System.nanoTime();
+        ossMetrics.transferStarted(provider, operation);
+        boolean success = false;
+        try {
+            T result = task.call();
+            success = true;
+            return result;
+        } finally {
+            ossMetrics.transferFinished(provider, operation, System.nanoTime() - start,
+                    success ? bytes.getAsLong() : 0, success);
+        }
+    }
+
+    /**
+     * 向服务端查询对象元数据，不经过缓存
+     *
+     * @param objectName 对象名称
+     * @return 对象元数据
+     * @throws Exception 异常
+     */
+    protected abstract ObjectStat statObject(String objectName) throws Exception;
+
+    /**
+     * 按下载带宽限制把响应流写入本地文件，写入失败时删除不完整的文件
+     *
+     * @param inputStream 响应流，方法结束时关闭
+     * @param target      本地文件
+     * @param options     打开文件的方式
+     * @return 写入的字节数
+     * @throws IOException IO异常
+     */
+    protected long transferTo(InputStream inputStream, Path target, OpenOption... options) throws IOException {
+        try (InputStream in = bandwidthLimiter.throttleDownload(inputStream)) {
+            FileChannel channel = FileChannel.open(target, options);
+            try (FileChannel out = channel) {
+                return FileChannelUtil.transfer(Channels.newChannel(in), out, 0, properties.getDownload().getBufferSize());
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 下载对象到本地文件，开启下载缓存时经过本地磁盘缓存：缓存的内容未变化时从本地复制，否则下载到缓存后复制
+     *
+     * @param objectName 对象名称
+     * @param target     本地文件
+     * @param options    打开文件的方式
+     * @return 写入的字节数
+     * @throws Exception 异常
+     */
+    protected long fetchObject(String objectName, Path target, OpenOption... options) throws Exception {
+        String object = objectKey(objectName);
+        if (downloadCache == null) {
+            return transferTo(openObject(object, null, 0).getContent(), target, options);
+        }
+        return downloadCache.copyTo(object, target,
+                (etag, lastModified) -> openThrottled(object, etag, lastModified), options);
+    }
+
+    /**
+     * 读取对象，响应流按下载带宽限制读取
+     *
+     * @param objectName   对象名称
+     * @param etag         本地副本的ETag，为null时不带条件
+     * @param lastModified 本地副本的修改时间（毫秒）
+     * @return 对象内容，内容未变化时返回null
+     * @throws Exception 异常
+     */
+    private ObjectContent openThrottled(String objectName, String etag, long lastModified) throws Exception {
+        ObjectContent content = openObject(objectName, etag, lastModified);
+        if (content != null) {
+            content.setContent(bandwidthLimiter.throttleDownload(content.getContent()));
+        }
+        return content;
+    }
+
+    /**
+     * 读取对象，给出ETag或修改时间时发送条件请求
+     *
+     * @param objectName   对象名称
+     * @param etag         本地副本的ETag，为null时不带条件
+     * @param lastModified 本地副本的修改时间（毫秒），etag为null且大于0时按修改时间判断
+     * @return 对象内容，内容未变化时返回null
+     * @throws Exception 异常
+     */
+    protected abstract ObjectContent openObject(String objectName, String etag, long lastModified) throws Exception;
+
+    /**
+     * 获取一页列举结果
+     *
+     * @param prefix    对象名称前缀
+     * @param delimiter 分隔符
+     * @param pageSize  每页数量
+     * @param marker    起始标记，第一页为null
+     * @return 列举结果
+     * @throws Exception 异常
+     */
+    protected abstract ObjectPage listPage(String prefix, String delimiter, int pageSize, String marker) throws Exception;
+
+    /**
+     * 上传已知大小的输入流
+     *
+     * @param objectName  对象名称
+     * @param inputStream 输入流，由调用方关闭
+     * @param size        文件大小
+     * @param contentType 文件类型
+     * @return 对象名称
+     * @throws Exception 异常
+     */
+    protected abstract String putObject(String objectName, InputStream inputStream, long size, String contentType) throws Exception;
+
+    /**
+     * 分片上传已知大小的输入流
+     *
+     * @param objectName    对象名称
+     * @param inputStream   输入流，由调用方关闭
+     * @param size          文件大小，未知时为-1，读到流结束为止
+     * @param contentType   文件类型
+     * @param checkpointKey 断点记录标识，为null时不记录断点
+     * @return 实际上传的对象名称，断点续传时为上一次上传使用的名称
+     * @throws Exception 异常
+     */
+    protected abstract String putMultipartObject(String objectName, InputStream inputStream, long size, String contentType,
+                                                 String checkpointKey) throws Exception;
+
+    /**
+     * 分片上传本地文件，分片按位置直接从文件读取
+     *
+     * @param objectName    对象名称
+     * @param file          本地文件
+     * @param size          文件大小
+     * @param contentType   文件类型
+     * @param checkpointKey 断点记录标识
+     * @return 实际上传的对象名称，断点续传时为上一次上传使用的名称
+     * @throws Exception 异常
+     */
+    protected abstract String putMultipartFile(String objectName, Path file, long size, String contentType,
+                                               String checkpointKey) throws Exception;
+
+    /**
+     * 生成对象的预签名地址
+     *
+     * @param objectName    对象名称
+     * @param method        GET或PUT
+     * @param contentType   上传的文件类型，可为null
+     * @param expireSeconds 有效期（秒）
+     * @return 预签名地址
+     * @throws Exception 异常
+     */
+    protected abstract PresignedUrl presignObject(String objectName, String method, String contentType,
+                                                  long expireSeconds) throws Exception;
+
+    /**
+     * 生成分片的预签名上传地址
+     *
+     * @param objectName    对象名称
+     * @param uploadId      分片上传ID
+     * @param partNumber    分片号
+     * @param expireSeconds 有效期（秒）
+     * @return 预签名地址
+     * @throws Exception 异常
+     */
+    protected abstract PresignedUrl presignPartUpload(String objectName, String uploadId, int partNumber,
+                                                      long expireSeconds) throws Exception;
+
+    /**
+     * 存储服务的分片上传接口
+     *
+     * @param contentType 初始化分片上传时使用的文件类型，可为null
+     * @return 分片上传接口
+     */
+    protected abstract MultipartOperations multipartOperations(String contentType);
+
+    /**
+     * 存储服务的分片限制
+     *
+     * @return 分片限制
+     */
+    protected abstract PartLimits partLimits();
+
+    /**
+     * 获取对象的访问路径
+     *
+     * @param objectName 对象名称
+     * @return url
+     */
+    protected abstract String getUrl(String objectName);
+
+    /**
+     * 去掉访问路径前缀，得到对象名称，缓存统一以对象名称为键
+     *
+     * @param objectName 对象名称或访问路径
+     * @return 对象名称
+     */
+    protected String objectKey(String objectName) {
+        String url = getUrl("");
+        return objectName.startsWith(url) ? objectName.substring(url.length()) : objectName;
+    }
+
+    /**
+     * 在传输线程池中并发执行批量任务，同时进行的任务数不超过batch.concurrency
+     * 注意不要在传输线程池的任务中调用批量上传，否则可能占满线程池
+     *
+     * @param names 原始文件名
+     * @param tasks 上传任务
+     * @return 上传结果
+     */
+    private List<BatchUploadResult> runBatch(List<String> names, List<Callable<String>> tasks) {
+        int size = tasks.size();
+        BatchUploadResult[] results = new BatchUploadResult[size];
+        CompletableFuture<?>[] futures = new CompletableFuture[size];
+        Semaphore permits = new Semaphore(Math.max(1, properties.getBatch().getConcurrency()));
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            permits.acquireUninterruptibly();
+            futures[i] = supplyAsync(tasks.get(i), ossTransferExecutor).handle((url, e) -> {
+                permits.release();
+                results[index] = new BatchUploadResult(index, names.get(index), url, e == null ? null : errorMessage(e));
+                return null;
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 以指定名称上传对象
+     */
+    @FunctionalInterface
+    protected interface ObjectUploader {
+        /**
+         * 上传对象
+         *
+         * @param objectName  对象名称
+         * @param inputStream 输入流，由调用方关闭
+         * @return 实际保存的对象名称，断点续传时可能与传入的名称不同
+         * @throws Exception 异常
+         */
+        String upload(String objectName, InputStream inputStream) throws Exception;
+    }
+
+    private static String errorMessage(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    /**
+     * 在指定线程池中执行任务，线程池已满拒绝任务时返回异常结束的Future
+     *
+     * @param task     任务
+     * @param executor 线程池
+     * @return 任务结果
+     */
+    protected static <T> CompletableFuture<T> supplyAsync(Callable<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
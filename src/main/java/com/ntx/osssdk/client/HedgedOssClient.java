@@ -0,0 +1,590 @@
+package com.ntx.osssdk.client;
+
+import com.ntx.osssdk.hedge.LatencyTracker;
+import com.ntx.osssdk.metrics.OssMetrics;
+import com.ntx.osssdk.model.BackendStats;
+import com.ntx.osssdk.model.BatchDeleteResult;
+import com.ntx.osssdk.model.BatchUploadResult;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedMultipartUpload;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.model.UploadItem;
+import com.ntx.osssdk.properties.Properties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * @ClassName HedgedOssClient
+ * @Author ntx
+ * @Description 多存储服务客户端，各存储服务保存相同的数据（如已配置跨服务同步）。
+ * 写入使用第一个存储服务；读取先发往最近延迟最低的存储服务，超过长尾延迟仍未返回时向下一个存储服务发出对冲请求，
+ * 使用先返回的结果，请求失败时切换到下一个存储服务。下载整个文件不对冲，只在失败时切换。
+ */
+@Slf4j
+public class HedgedOssClient implements OssClient {
+
+    private static final String STAT = "stat";
+
+    private static final String DOWNLOAD = "download";
+
+    private static final String DOWNLOAD_FILE = "downloadFile";
+
+    private static final String GET_OBJECT = "getObject";
+
+    /**
+     * 对冲额度的上限，允许短时间内集中发出的对冲请求数
+     */
+    private static final double MAX_HEDGE_CREDIT = 10;
+
+    @Resource
+    private Properties properties;
+
+    @Resource
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Resource
+    private Executor ossTransferExecutor;
+
+    @Resource
+    private OssMetrics ossMetrics;
+
+    private final List<Backend> backends = new ArrayList<>();
+
+    /**
+     * 对冲延迟的计时线程，只负责发出对冲请求
+     */
+    private ScheduledExecutorService hedgeTimer;
+
+    /**
+     * 剩余的对冲额度，每个读取请求增加max-hedge-ratio，每个对冲请求消耗1
+     */
+    private double hedgeCredit;
+
+    /**
+     * 按各存储服务的配置创建客户端，依赖注入和初始化与容器中的客户端相同
+     */
+    @PostConstruct
+    public void init() {
+        List<Properties> configs = properties.getBackends();
+        if (configs.isEmpty()) {
+            throw new RuntimeException("未配置存储服务");
+        }
+        for (int i = 0; i < configs.size(); i++) {
+            Properties config = configs.get(i);
+            String name = config.getType() + "#" + i;
+            AbstractOssClient client = (AbstractOssClient) OssClientFactory.newInstance(config.getType());
+            beanFactory.autowireBean(client);
+            client.setProperties(config);
+            client.setBackendName(name);
+            client = (AbstractOssClient) beanFactory.initializeBean(client, "ossClient." + name);
+            backends.add(new Backend(name, client));
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("oss-hedge-");
+        threadFactory.setDaemon(true);
+        hedgeTimer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (hedgeTimer != null) {
+            hedgeTimer.shutdownNow();
+        }
+        for (Backend backend : backends) {
+            beanFactory.destroyBean(backend.client);
+        }
+    }
+
+    /**
+     * 获取各存储服务的读取延迟和对冲情况
+     *
+     * @return 按配置顺序排列
+     */
+    public List<BackendStats> getBackendStats() {
+        List<BackendStats> stats = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            Map<String, Double> latency = new LinkedHashMap<>();
+            backend.trackers.forEach((operation, tracker) -> latency.put(operation, tracker.getAverageNanos() / 1e6));
+            stats.add(new BackendStats(backend.name, latency, backend.requests.sum(), backend.failures.sum(),
+                    backend.hedges.sum(), backend.hedgeWins.sum()));
+        }
+        return stats;
+    }
+
+    // ---------------- 写入：使用第一个存储服务 ----------------
+
+    private AbstractOssClient primary() {
+        return backends.get(0).client;
+    }
+
+    @Override
+    public String upload(MultipartFile file) throws Exception {
+        return primary().upload(file);
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file) throws Exception {
+        return primary().uploadFile(file);
+    }
+
+    @Override
+    public String upload(Path file) throws Exception {
+        return primary().upload(file);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception {
+        return primary().upload(inputStream, size, originalFilename, contentType);
+    }
+
+    @Override
+    public String uploadStream(InputStream inputStream, String originalFilename, String contentType) throws Exception {
+        return primary().uploadStream(inputStream, originalFilename, contentType);
+    }
+
+    @Override
+    public PresignedUrl presignUpload(String originalFilename, String contentType) throws Exception {
+        return primary().presignUpload(originalFilename, contentType);
+    }
+
+    @Override
+    public PresignedMultipartUpload initiatePresignedMultipart(String originalFilename, String contentType, long size) throws Exception {
+        return primary().initiatePresignedMultipart(originalFilename, contentType, size);
+    }
+
+    @Override
+    public PresignedUrl presignPart(String objectName, String uploadId, int partNumber) throws Exception {
+        return primary().presignPart(objectName, uploadId, partNumber);
+    }
+
+    @Override
+    public String completePresignedMultipart(String objectName, String uploadId) throws Exception {
+        return primary().completePresignedMultipart(objectName, uploadId);
+    }
+
+    @Override
+    public void abortPresignedMultipart(String objectName, String uploadId) throws Exception {
+        primary().abortPresignedMultipart(objectName, uploadId);
+    }
+
+    @Override
+    public String uploadFile(Path file) throws Exception {
+        return primary().uploadFile(file);
+    }
+
+    @Override
+    public String uploadFile(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception {
+        return primary().uploadFile(inputStream, size, originalFilename, contentType);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(MultipartFile file) {
+        return primary().uploadAsync(file);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(MultipartFile file, Executor executor) {
+        return primary().uploadAsync(file, executor);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file) {
+        return primary().uploadFileAsync(file);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, Executor executor) {
+        return primary().uploadFileAsync(file, executor);
+    }
+
+    @Override
+    public List<BatchUploadResult> uploadBatch(List<MultipartFile> files) {
+        return primary().uploadBatch(files);
+    }
+
+    @Override
+    public List<BatchUploadResult> uploadStreamBatch(List<UploadItem> items) {
+        return primary().uploadStreamBatch(items);
+    }
+
+    @Override
+    public BatchDeleteResult delete(Collection<String> objectNames) {
+        return primary().delete(objectNames);
+    }
+
+    // ---------------- 读取：按延迟选择存储服务并对冲 ----------------
+
+    @Override
+    public boolean download(String downloadPath, String objectName) throws Exception {
+        return join(downloadAsync(downloadPath, objectName));
+    }
+
+    @Override
+    public boolean downloadFile(String downloadPath, String objectName) throws Exception {
+        return join(downloadFileAsync(downloadPath, objectName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName) {
+        return downloadAsync(downloadPath, objectName, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName, Executor executor) {
+        return download(DOWNLOAD, downloadPath, objectName, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName) {
+        return downloadFileAsync(downloadPath, objectName, ossTransferExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName, Executor executor) {
+        return download(DOWNLOAD_FILE, downloadPath, objectName, executor);
+    }
+
+    @Override
+    public ObjectStat stat(String objectName) throws Exception {
+        String key = objectKey(objectName);
+        return join(read(STAT, client -> client.stat(key), ossTransferExecutor, new ArrayList<>(), true));
+    }
+
+    /**
+     * 对冲读取：先返回的输入流交给调用方，其余请求返回的输入流直接关闭
+     */
+    @Override
+    public InputStream getObject(String objectName) throws Exception {
+        String key = objectKey(objectName);
+        List<CompletableFuture<InputStream>> attempts = new CopyOnWriteArrayList<>();
+        CompletableFuture<InputStream> result = read(GET_OBJECT, client -> client.getObject(key), ossTransferExecutor,
+                attempts, true);
+        result.whenComplete((winner, e) -> attempts.forEach(attempt -> attempt.thenAccept(in -> {
+            if (in != winner) {
+                closeQuietly(in);
+            }
+        })));
+        return join(result);
+    }
+
+    /**
+     * 下载地址由客户端直接访问，使用最近查询元数据延迟最低的存储服务
+     */
+    @Override
+    public PresignedUrl presignDownload(String objectName) throws Exception {
+        Backend backend = rank(STAT).get(0);
+        return backend.client.presignDownload(objectKey(objectName));
+    }
+
+    /**
+     * 列举结果较大，不对冲，使用查询元数据延迟最低的存储服务
+     */
+    @Override
+    public Stream<ObjectSummary> listObjects(String prefix) {
+        return rank(STAT).get(0).client.listObjects(prefix);
+    }
+
+    @Override
+    public Stream<ObjectSummary> listObjects(String prefix, String delimiter, int pageSize) {
+        return rank(STAT).get(0).client.listObjects(prefix, delimiter, pageSize);
+    }
+
+    /**
+     * 下载整个文件不对冲：对冲的请求无法中途取消，会重复传输整个文件并占用双倍磁盘空间，且下载耗时随文件大小变化，
+     * 长尾延迟没有意义。失败时切换到下一个存储服务，每个请求下载到下载路径中独立的临时目录，成功的文件移动到目标位置
+     */
+    private CompletableFuture<Boolean> download(String operation, String downloadPath, String objectName, Executor executor) {
+        if (downloadPath.isEmpty() || !StringUtils.hasLength(objectName)) {
+            return failed(new RuntimeException("下载文件参数不全！"));
+        }
+        if (!new File(downloadPath).isDirectory()) {
+            return failed(new RuntimeException("本地下载路径必须是一个文件夹或者文件路径！"));
+        }
+        String key = objectKey(objectName);
+        Path target = Paths.get(downloadPath, key.substring(key.lastIndexOf('/') + 1));
+        List<CompletableFuture<Path>> attempts = new CopyOnWriteArrayList<>();
+        CompletableFuture<Boolean> result = read(operation, client -> {
+            Path dir = Files.createTempDirectory(Paths.get(downloadPath), ".hedge-");
+            try {
+                boolean ok = DOWNLOAD.equals(operation) ? client.download(dir.toString(), client.getUrl(key))
+                        : client.downloadFile(dir.toString(), client.getUrl(key));
+                if (!ok) {
+                    throw new RuntimeException("下载文件失败：" + key);
+                }
+                return dir.resolve(target.getFileName());
+            } catch (Exception e) {
+                deleteQuietly(dir);
+                throw e;
+            }
+        }, executor, attempts, false).thenApply(file -> {
+            move(file, target);
+            return true;
+        });
+        // 结果确定后清理临时目录
+        result.whenComplete((ok, e) -> attempts.forEach(attempt -> attempt.whenComplete((file, error) -> {
+            if (file != null) {
+                deleteQuietly(file.getParent());
+            }
+        })));
+        return result;
+    }
+
+    /**
+     * 发起读取请求：先发往延迟最低的存储服务，超过长尾延迟未返回时向下一个存储服务对冲，失败时切换到下一个存储服务
+     *
+     * @param operation 操作
+     * @param read      读取方法
+     * @param executor  执行请求的线程池
+     * @param attempts  收集发出的每个请求
+     * @param hedgeable 是否允许对冲，为false时只在失败后切换存储服务
+     * @return 最先成功的结果，全部失败时为最后一个异常
+     */
+    private <T> CompletableFuture<T> read(String operation, Read<T> read, Executor executor,
+                                          List<CompletableFuture<T>> attempts, boolean hedgeable) {
+        Properties.Hedge hedge = properties.getHedge();
+        boolean hedging = hedgeable && hedge.isEnabled() && backends.size() > 1;
+        if (hedging) {
+            addHedgeCredit(hedge.getMaxHedgeRatio());
+        }
+        HedgedRead<T> hedgedRead = new HedgedRead<>(operation, rank(operation), read, executor, attempts, hedging);
+        hedgedRead.launch(false);
+        return hedgedRead.result;
+    }
+
+    /**
+     * 按指定操作的平均延迟从低到高排列存储服务，没有记录的存储服务排在前面以获得延迟数据
+     */
+    private List<Backend> rank(String operation) {
+        List<Backend> ranked = new ArrayList<>(backends);
+        ranked.sort(Comparator.comparingDouble(backend -> backend.trackers.get(operation).getAverageNanos()));
+        return ranked;
+    }
+
+    /**
+     * 对冲延迟：固定配置，或上一个请求所在存储服务的长尾延迟
+     */
+    private long hedgeDelayNanos(Backend backend, String operation) {
+        Properties.Hedge hedge = properties.getHedge();
+        if (hedge.getDelayMillis() > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(hedge.getDelayMillis());
+        }
+        return backend.trackers.get(operation).tailNanos(TimeUnit.MILLISECONDS.toNanos(hedge.getMinDelayMillis()),
+                TimeUnit.MILLISECONDS.toNanos(hedge.getMaxDelayMillis()));
+    }
+
+    private synchronized void addHedgeCredit(double credit) {
+        hedgeCredit = Math.min(MAX_HEDGE_CREDIT, hedgeCredit + credit);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (hedgeCredit < 1) {
+            return false;
+        }
+        hedgeCredit--;
+        return true;
+    }
+
+    /**
+     * 去掉任一存储服务的访问路径前缀，得到对象名称
+     */
+    private String objectKey(String objectName) {
+        for (Backend backend : backends) {
+            String prefix = backend.client.getUrl("");
+            if (objectName.startsWith(prefix)) {
+                return objectName.substring(prefix.length());
+            }
+        }
+        return objectName;
+    }
+
+    private static void move(Path source, Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("==>删除临时目录失败：{}", dir, e);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.warn("==>关闭输入流失败", e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Exception e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 从单个存储服务读取
+     */
+    @FunctionalInterface
+    private interface Read<T> {
+        T read(AbstractOssClient client) throws Exception;
+    }
+
+    /**
+     * 一次读取的状态，所有状态变更在该对象上同步
+     */
+    private class HedgedRead<T> {
+        private final String operation;
+        private final List<Backend> ranked;
+        private final Read<T> read;
+        private final Executor executor;
+        private final List<CompletableFuture<T>> attempts;
+        private final boolean hedging;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /**
+         * 已发出的请求数，也是下一个存储服务的位置
+         */
+        private int launched;
+        /**
+         * 尚未结束的请求数
+         */
+        private int outstanding;
+
+        private HedgedRead(String operation, List<Backend> ranked, Read<T> read, Executor executor,
+                           List<CompletableFuture<T>> attempts, boolean hedging) {
+            this.operation = operation;
+            this.ranked = ranked;
+            this.read = read;
+            this.executor = executor;
+            this.attempts = attempts;
+            this.hedging = hedging;
+        }
+
+        /**
+         * 向下一个存储服务发出请求，并在对冲延迟后检查是否需要对冲
+         */
+        private synchronized void launch(boolean hedged) {
+            Backend backend = ranked.get(launched++);
+            outstanding++;
+            backend.requests.increment();
+            if (hedged) {
+                backend.hedges.increment();
+                ossMetrics.recordHedge(backend.name, operation, "sent");
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> attempt = AbstractOssClient.supplyAsync(() -> read.read(backend.client), executor);
+            attempts.add(attempt);
+            attempt.whenComplete((value, e) -> complete(backend, hedged, System.nanoTime() - start, value, e));
+            if (hedging && launched < ranked.size()) {
+                int generation = launched;
+                try {
+                    hedgeTimer.schedule(() -> onHedgeDelay(generation), hedgeDelayNanos(backend, operation),
+                            TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // 容器关闭中，不再对冲
+                }
+            }
+        }
+
+        /**
+         * 对冲延迟到期时仍没有结果且期间没有发出新请求，在额度允许时发出对冲请求
+         */
+        private synchronized void onHedgeDelay(int generation) {
+            if (result.isDone() || launched != generation || launched >= ranked.size()) {
+                return;
+            }
+            if (tryAcquireHedge()) {
+                launch(true);
+            }
+        }
+
+        private synchronized void complete(Backend backend, boolean hedged, long nanos, T value, Throwable e) {
+            outstanding--;
+            if (e == null) {
+                backend.trackers.get(operation).record(nanos);
+                if (result.complete(value) && hedged) {
+                    backend.hedgeWins.increment();
+                    ossMetrics.recordHedge(backend.name, operation, "won");
+                }
+                return;
+            }
+            backend.failures.increment();
+            // 失败按不低于对冲延迟上限的延迟计入，使该存储服务排到后面
+            long penalty = TimeUnit.MILLISECONDS.toNanos(properties.getHedge().getMaxDelayMillis());
+            backend.trackers.get(operation).record(Math.max(nanos, penalty));
+            if (result.isDone()) {
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("==>从存储服务{}读取失败：{}", backend.name, cause.getMessage());
+            if (outstanding == 0) {
+                if (launched < ranked.size()) {
+                    launch(false);
+                } else {
+                    result.completeExceptionally(cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个存储服务及其读取情况
+     */
+    private static class Backend {
+        private final String name;
+        private final AbstractOssClient client;
+        private final Map<String, LatencyTracker> trackers = new LinkedHashMap<>();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+        private final LongAdder hedgeWins = new LongAdder();
+
+        private Backend(String name, AbstractOssClient client) {
+            this.name = name;
+            this.client = client;
+            for (String operation : new String[]{STAT, DOWNLOAD, DOWNLOAD_FILE, GET_OBJECT}) {
+                trackers.put(operation, new LatencyTracker());
+            }
+        }
+    }
+}
@@ -1,7 +1,22 @@
 package com.ntx.osssdk.client;
 
+import com.ntx.osssdk.model.BatchDeleteResult;
+import com.ntx.osssdk.model.BatchUploadResult;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedMultipartUpload;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.model.UploadItem;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
 /**
  * @ClassName OssClient
  * @Author ntx
@@ -34,4 +49,263 @@ public interface OssClient {
      * @throws Exception 异常
      */
     String uploadFile(MultipartFile file) throws Exception;
+
+    /**
+     * 分片下载文件，大文件按字节范围并发下载
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件名称
+     * @return true/false
+     * @throws Exception 异常
+     */
+    boolean downloadFile(String downloadPath, String objectName) throws Exception;
+
+    /**
+     * 上传本地文件
+     *
+     * @param file 本地文件
+     * @return url
+     * @throws Exception 异常
+     */
+    String upload(Path file) throws Exception;
+
+    /**
+     * 上传已知大小的输入流
+     *
+     * @param inputStream      输入流，由调用方关闭
+     * @param size             大小
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀
+     * @param contentType      文件类型，可为null
+     * @return url
+     * @throws Exception 异常
+     */
+    String upload(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 分片上传本地文件，分片按位置直接从文件读取，不复制到堆内缓冲区
+     *
+     * @param file 本地文件
+     * @return url
+     * @throws Exception 异常
+     */
+    String uploadFile(Path file) throws Exception;
+
+    /**
+     * 上传大小未知的输入流（如HTTP请求体），读到流结束为止。数据不超过一个分片时普通上传，
+     * 否则边读取边分片上传，内存中只保留有限个分片，不在本地磁盘暂存
+     *
+     * @param inputStream      输入流，由调用方关闭
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀，可为null
+     * @param contentType      文件类型，可为null
+     * @return url
+     * @throws Exception 异常
+     */
+    String uploadStream(InputStream inputStream, String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 分片上传已知大小的输入流
+     *
+     * @param inputStream      输入流，由调用方关闭
+     * @param size             大小
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀和断点记录标识
+     * @param contentType      文件类型，可为null
+     * @return url
+     * @throws Exception 异常
+     */
+    String uploadFile(InputStream inputStream, long size, String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 异步上传文件，在默认传输线程池中执行
+     * 在Spring MVC中直接返回该Future可在传输期间释放请求线程，且上传完成前MultipartFile不会被清理
+     *
+     * @param file 上传的文件
+     * @return url
+     */
+    CompletableFuture<String> uploadAsync(MultipartFile file);
+
+    /**
+     * 异步上传文件，在指定线程池中执行
+     *
+     * @param file     上传的文件
+     * @param executor 执行上传的线程池，如虚拟线程线程池
+     * @return url
+     */
+    CompletableFuture<String> uploadAsync(MultipartFile file, Executor executor);
+
+    /**
+     * 异步分片上传文件，在默认传输线程池中执行
+     *
+     * @param file 上传的文件
+     * @return url
+     */
+    CompletableFuture<String> uploadFileAsync(MultipartFile file);
+
+    /**
+     * 异步分片上传文件，在指定线程池中执行
+     *
+     * @param file     上传的文件
+     * @param executor 执行上传的线程池
+     * @return url
+     */
+    CompletableFuture<String> uploadFileAsync(MultipartFile file, Executor executor);
+
+    /**
+     * 异步下载文件，在默认传输线程池中执行
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件名称
+     * @return true/false
+     */
+    CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName);
+
+    /**
+     * 异步下载文件，在指定线程池中执行
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件名称
+     * @param executor     执行下载的线程池
+     * @return true/false
+     */
+    CompletableFuture<Boolean> downloadAsync(String downloadPath, String objectName, Executor executor);
+
+    /**
+     * 异步分片下载文件，在默认传输线程池中执行
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件名称
+     * @return true/false
+     */
+    CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName);
+
+    /**
+     * 异步分片下载文件，在指定线程池中执行
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件名称
+     * @param executor     执行下载的线程池
+     * @return true/false
+     */
+    CompletableFuture<Boolean> downloadFileAsync(String downloadPath, String objectName, Executor executor);
+
+    /**
+     * 批量上传文件，多个文件并发上传，单个文件失败不影响其他文件
+     *
+     * @param files 上传的文件
+     * @return 每个文件的上传结果，顺序与入参一致
+     */
+    List<BatchUploadResult> uploadBatch(List<MultipartFile> files);
+
+    /**
+     * 批量上传输入流，多个输入流并发上传，单个失败不影响其他数据项
+     *
+     * @param items 上传的数据项，需给出准确的文件大小
+     * @return 每个数据项的上传结果，顺序与入参一致
+     */
+    List<BatchUploadResult> uploadStreamBatch(List<UploadItem> items);
+
+    /**
+     * 批量删除对象，按服务商单次批量删除的上限拆分后并发发送。
+     * 开启内容去重时，相同内容的上传共享同一个按摘要命名的对象，去重前缀下的对象不删除，在结果中记为失败
+     *
+     * @param objectNames 对象名称或上传返回的访问路径
+     * @return 删除结果，包含每个删除失败的对象及原因
+     */
+    BatchDeleteResult delete(Collection<String> objectNames);
+
+    /**
+     * 递归列举指定前缀下的所有对象
+     *
+     * @param prefix 对象名称前缀，为空时列举整个桶
+     * @return 对象流，使用完毕后应关闭
+     */
+    Stream<ObjectSummary> listObjects(String prefix);
+
+    /**
+     * 分页列举对象，按需逐页获取，处理当前页时在后台获取下一页
+     *
+     * @param prefix    对象名称前缀，为空时列举整个桶
+     * @param delimiter 分隔符，如"/"，指定时公共前缀以目录形式返回；为空时递归列举
+     * @param pageSize  每页数量，取值1~1000
+     * @return 对象流，使用完毕后应关闭
+     */
+    Stream<ObjectSummary> listObjects(String prefix, String delimiter, int pageSize);
+
+    /**
+     * 生成上传新文件的预签名地址，客户端直接上传到存储服务。对象名称按命名策略生成，
+     * 七牛云为表单上传，客户端按返回的表单字段发起POST请求
+     *
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀
+     * @param contentType      文件类型，可为null；参与签名时客户端需携带返回的请求头
+     * @return 预签名地址
+     * @throws Exception 异常
+     */
+    PresignedUrl presignUpload(String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 生成下载的预签名地址，同一对象在剩余有效期不足oss.client.presign.refresh-ahead-seconds前复用缓存的签名
+     *
+     * @param objectName 对象名称或访问路径
+     * @return 预签名地址
+     * @throws Exception 异常
+     */
+    PresignedUrl presignDownload(String objectName) throws Exception;
+
+    /**
+     * 初始化客户端直传的分片上传，之后客户端逐个通过presignPart获取分片地址上传
+     *
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀
+     * @param contentType      文件类型，可为null
+     * @param size             文件大小，用于计算分片大小
+     * @return 对象名称、uploadId、分片大小和分片数
+     * @throws Exception 异常
+     */
+    PresignedMultipartUpload initiatePresignedMultipart(String originalFilename, String contentType, long size) throws Exception;
+
+    /**
+     * 生成分片的预签名上传地址，同一分片在有效期内复用缓存的签名
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片号，从1开始
+     * @return 预签名地址
+     * @throws Exception 异常
+     */
+    PresignedUrl presignPart(String objectName, String uploadId, int partNumber) throws Exception;
+
+    /**
+     * 完成客户端直传的分片上传，按服务端记录的已上传分片合并
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @return url
+     * @throws Exception 异常
+     */
+    String completePresignedMultipart(String objectName, String uploadId) throws Exception;
+
+    /**
+     * 取消客户端直传的分片上传，删除已上传的分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @throws Exception 异常
+     */
+    void abortPresignedMultipart(String objectName, String uploadId) throws Exception;
+
+    /**
+     * 获取对象元数据（大小、ETag、文件类型），结果在oss.client.cache.stat-ttl-seconds内缓存
+     *
+     * @param objectName 对象名称或上传返回的访问路径
+     * @return 对象元数据
+     * @throws Exception 对象不存在或请求失败
+     */
+    ObjectStat stat(String objectName) throws Exception;
+
+    /**
+     * 读取对象内容，开启oss.client.object-cache时不超过单个对象大小上限的对象缓存在堆外内存中
+     *
+     * @param objectName 对象名称或访问路径
+     * @return 输入流，由调用方关闭
+     * @throws Exception 对象不存在或请求失败
+     */
+    InputStream getObject(String objectName) throws Exception;
 }
@@ -1,24 +1,53 @@
 package com.ntx.osssdk.client.impl;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.auth.DefaultCredentialProvider;
 import com.aliyun.oss.model.*;
-import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.client.AbstractOssClient;
+import com.ntx.osssdk.listing.ObjectPage;
+import com.ntx.osssdk.model.ObjectContent;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.multipart.MeteredMultipartOperations;
+import com.ntx.osssdk.multipart.MultipartOperations;
+import com.ntx.osssdk.multipart.MultipartUploadTemplate;
+import com.ntx.osssdk.multipart.PartData;
+import com.ntx.osssdk.multipart.PartLimits;
+import com.ntx.osssdk.multipart.RangeDownloadEngine;
+import com.ntx.osssdk.multipart.RetryingMultipartOperations;
+import com.ntx.osssdk.multipart.UploadPlan;
+import com.ntx.osssdk.multipart.UploadedPart;
 import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.retry.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @ClassName AliyunClient
@@ -26,9 +55,70 @@ import java.util.UUID;
  * @Description 阿里云oss
  */
 @Slf4j
-public class AliyunClient implements OssClient {
+public class AliyunClient extends AbstractOssClient {
+    /**
+     * 一次CopyObject请求可复制的最大对象大小
+     */
+    private static final long MAX_COPY_SIZE = 1024 * 1024 * 1024L;
+
     @Resource
-    private Properties properties;
+    private MultipartUploadTemplate multipartUploadTemplate;
+
+
+    @Resource
+    private RetryPolicy retryPolicy;
+
+    @Resource
+    private RangeDownloadEngine rangeDownloadEngine;
+
+    /**
+     * 共享的OSSClient实例，线程安全，随Spring容器创建和关闭
+     */
+    private OSS ossClient;
+
+    /**
+     * 分片上传和分段下载使用的OSSClient，不使用SDK自身的重试，失败时只由重试策略重试并计量
+     */
+    private OSS transferClient;
+
+    /**
+     * 初始化OSSClient，复用连接池
+     */
+    @PostConstruct
+    public void init() {
+        CredentialsProvider credentialsProvider = new DefaultCredentialProvider(properties.getAccessKey(), properties.getSecretKey());
+        // 创建OSSClient实例。
+        ossClient = new OSSClientBuilder().build(properties.getEndpoint(), credentialsProvider,
+                clientConfiguration(properties.getAliyun().getMaxErrorRetry()));
+        transferClient = new OSSClientBuilder().build(properties.getEndpoint(), credentialsProvider,
+                clientConfiguration(0));
+    }
+
+    private ClientBuilderConfiguration clientConfiguration(int maxErrorRetry) {
+        Properties.Aliyun aliyun = properties.getAliyun();
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setMaxConnections(aliyun.getMaxConnections());
+        conf.setConnectionTimeout(aliyun.getConnectionTimeout());
+        conf.setSocketTimeout(aliyun.getSocketTimeout());
+        conf.setConnectionRequestTimeout(aliyun.getConnectionRequestTimeout());
+        conf.setIdleConnectionTime(aliyun.getIdleConnectionTime());
+        conf.setConnectionTTL(aliyun.getConnectionTTL());
+        conf.setMaxErrorRetry(maxErrorRetry);
+        return conf;
+    }
+
+    /**
+     * 容器关闭时释放OSSClient的连接池和线程
+     */
+    @PreDestroy
+    public void destroy() {
+        if (ossClient != null) {
+            ossClient.shutdown();
+        }
+        if (transferClient != null) {
+            transferClient.shutdown();
+        }
+    }
 
     @Override
     public String upload(MultipartFile file) throws Exception {
@@ -37,28 +127,99 @@ public class AliyunClient implements OssClient {
             log.error("==> 上传文件异常，文件大小为空...");
             throw new RuntimeException("文件大小为空");
         }
-        String fileName = getFileName(file);
-        CredentialsProvider credentialsProvider = new DefaultCredentialProvider(properties.getAccessKey(), properties.getSecretKey());
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(properties.getEndpoint(), credentialsProvider);
-        String url = "";
+        return uploadObject("upload", file,
+                (objectName, inputStream) -> putObject(objectName, inputStream, file.getSize(), file.getContentType()));
+    }
+
+    @Override
+    protected String putObject(String fileName, InputStream inputStream, long size, String contentType) {
+        // 设置文件大小和类型，避免分块传输编码
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+        metadata.setContentType(contentType);
+        // 创建PutObjectRequest对象。
+        PutObjectRequest putObjectRequest = new PutObjectRequest(properties.getBucket(), fileName, inputStream, metadata);
+        // 创建PutObject请求。
+        ossClient.putObject(putObjectRequest);
+        return fileName;
+    }
+
+    /**
+     * 批量删除对象，一次DeleteObjects请求最多1000个对象
+     *
+     * @param objectNames 对象名称
+     * @return 删除失败的对象名称及原因
+     */
+    @Override
+    protected Map<String, String> deleteObjects(List<String> objectNames) {
+        // 非简单模式下返回删除成功的对象，不在其中的即为删除失败
+        DeleteObjectsRequest request = new DeleteObjectsRequest(properties.getBucket())
+                .withKeys(objectNames)
+                .withQuiet(false);
+        Set<String> deleted = new HashSet<>(ossClient.deleteObjects(request).getDeletedObjects());
+        Map<String, String> errors = new HashMap<>();
+        for (String objectName : objectNames) {
+            if (!deleted.contains(objectName)) {
+                errors.put(objectName, "删除失败");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * 不超过1GB的对象一次复制，更大的对象按分片复制
+     */
+    @Override
+    protected void copyObject(String source, String target) throws Exception {
+        String bucket = properties.getBucket();
+        long size = ossClient.getObjectMetadata(bucket, source).getContentLength();
+        if (size <= MAX_COPY_SIZE) {
+            ossClient.copyObject(bucket, source, bucket, target);
+            return;
+        }
+        long partSize = partSizePlanner.partSize(size, PartLimits.ALIYUN);
+        String uploadId = ossClient.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, target)).getUploadId();
         try {
-            // 创建PutObjectRequest对象。
-            PutObjectRequest putObjectRequest = new PutObjectRequest(properties.getBucket(), fileName, file.getInputStream());
-            // 创建PutObject请求。
-            PutObjectResult result = ossClient.putObject(putObjectRequest);
-            url = getUrl(fileName);
-            log.info("==>上传文件至阿里云成功，访问路径：{}", url);
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
+            List<PartETag> partETags = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                UploadPartCopyResult result = ossClient.uploadPartCopy(new UploadPartCopyRequest(bucket, source, bucket,
+                        target, uploadId, partETags.size() + 1, offset, Math.min(partSize, size - offset)));
+                partETags.add(result.getPartETag());
             }
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, target, uploadId, partETags));
+        } catch (Exception e) {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, target, uploadId));
+            throw e;
         }
-        return url;
     }
 
     @Override
-    public boolean download(String downloadPath, String objectName) {
+    protected ObjectStat statObject(String objectName) {
+        ObjectMetadata metadata = ossClient.getObjectMetadata(properties.getBucket(), objectName);
+        return new ObjectStat(objectName, metadata.getContentLength(), metadata.getETag(), metadata.getContentType(),
+                metadata.getLastModified() == null ? 0 : metadata.getLastModified().getTime());
+    }
+
+    /**
+     * 按marker逐页列举，每页最多1000个
+     */
+    @Override
+    protected ObjectPage listPage(String prefix, String delimiter, int pageSize, String marker) {
+        ObjectListing listing = ossClient.listObjects(
+                new ListObjectsRequest(properties.getBucket(), prefix, marker, delimiter, pageSize));
+        List<ObjectSummary> items = new ArrayList<>(listing.getObjectSummaries().size() + listing.getCommonPrefixes().size());
+        for (OSSObjectSummary summary : listing.getObjectSummaries()) {
+            items.add(new ObjectSummary(summary.getKey(), summary.getSize(), summary.getETag(),
+                    summary.getLastModified().getTime(), false));
+        }
+        for (String commonPrefix : listing.getCommonPrefixes()) {
+            items.add(ObjectSummary.directory(commonPrefix));
+        }
+        return new ObjectPage(items, listing.isTruncated() ? listing.getNextMarker() : null);
+    }
+
+    @Override
+    public boolean download(String downloadPath, String objectName) throws Exception {
         if (downloadPath.isEmpty() || !StringUtils.hasLength(objectName)) {
             throw new RuntimeException("下载文件参数不全！");
         }
@@ -67,19 +228,67 @@ public class AliyunClient implements OssClient {
         }
         String fileName = objectName.substring(objectName.lastIndexOf("/"));
         downloadPath += fileName;
-        CredentialsProvider credentialsProvider = new DefaultCredentialProvider(properties.getAccessKey(), properties.getSecretKey());
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(properties.getEndpoint(), credentialsProvider);
         String remotePath = getUrl("");
         objectName = objectName.replace(remotePath,"");
+        String object = objectName;
+        Path target = Paths.get(downloadPath);
+        record("download", () -> target.toFile().length(), () -> fetchObject(object, target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        log.info("==>下载成功，访问路径：{}", downloadPath);
+        return true;
+    }
+
+    /**
+     * 条件读取时由存储服务比较ETag，内容未变化返回304，不传输数据
+     */
+    @Override
+    protected ObjectContent openObject(String objectName, String etag, long lastModified) {
+        GetObjectRequest request = new GetObjectRequest(properties.getBucket(), objectName);
+        if (etag != null) {
+            request.setNonmatchingETagConstraints(Collections.singletonList(etag));
+        } else if (lastModified > 0) {
+            request.setModifiedSinceConstraint(new Date(lastModified));
+        }
+        OSSObject object;
         try {
-            ossClient.getObject(new GetObjectRequest(properties.getBucket(), objectName), new File(downloadPath));
-            log.info("==>下载成功，访问路径：{}", downloadPath);
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
+            object = ossClient.getObject(request);
+        } catch (OSSException e) {
+            if (OSSErrorCode.NOT_MODIFIED.equals(e.getErrorCode())) {
+                return null;
             }
+            throw e;
         }
+        ObjectMetadata metadata = object.getObjectMetadata();
+        return new ObjectContent(object.getObjectContent(), metadata.getContentLength(), metadata.getETag(),
+                metadata.getLastModified() == null ? 0 : metadata.getLastModified().getTime());
+    }
+
+    @Override
+    public boolean downloadFile(String downloadPath, String objectName) throws Exception {
+        if (downloadPath.isEmpty() || !StringUtils.hasLength(objectName)) {
+            throw new RuntimeException("下载文件参数不全！");
+        }
+        if (!new File(downloadPath).isDirectory()) {
+            throw new RuntimeException("本地下载路径必须是一个文件夹或者文件路径！");
+        }
+        String fileName = objectName.substring(objectName.lastIndexOf("/"));
+        Path target = Paths.get(downloadPath + fileName);
+        String remotePath = getUrl("");
+        String object = objectName.replace(remotePath, "");
+        // 下载前获取最新的大小，不使用缓存
+        long size = statObject(object).getSize();
+        Properties.Download download = properties.getDownload();
+        // 按字节范围并发下载，直接写入文件的对应位置
+        record("downloadFile", () -> size, () -> {
+            rangeDownloadEngine.download(provider(), target, size, download.getRangeSize(), download.getConcurrency(),
+                    download.getMaxRetries(), download.getBufferSize(), (start, end) -> {
+                        GetObjectRequest getObjectRequest = new GetObjectRequest(properties.getBucket(), object);
+                        getObjectRequest.setRange(start, end);
+                        return transferClient.getObject(getObjectRequest).getObjectContent();
+                    });
+            return true;
+        });
+        log.info("==>下载成功，访问路径：{}", target);
         return true;
     }
 
@@ -90,113 +299,158 @@ public class AliyunClient implements OssClient {
             log.error("==> 上传文件异常，文件大小为空...");
             throw new RuntimeException("文件大小为空");
         }
-        String fileName = getFileName(file);
-        CredentialsProvider credentialsProvider = new DefaultCredentialProvider(properties.getAccessKey(), properties.getSecretKey());
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(properties.getEndpoint(), credentialsProvider);
-        String url = "";
-        try {
-            // 创建InitiateMultipartUploadRequest对象。
-            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(properties.getBucket(), fileName);
+        // 同一文件再次上传时根据断点记录续传
+        String checkpointKey = MultipartUploadTemplate.checkpointKey(provider(), properties.getBucket(),
+                file.getOriginalFilename(), file.getSize());
+        return uploadObject("uploadFile", file, (objectName, inputStream) -> putMultipartObject(
+                objectName, inputStream, file.getSize(), file.getContentType(), checkpointKey));
+    }
 
-            // 如果需要在初始化分片时设置请求头，请参考以下示例代码。
-            ObjectMetadata metadata = new ObjectMetadata();
-            // 根据文件自动设置ContentType。如果不设置，ContentType默认值为application/oct-srream。
-            if (metadata.getContentType() == null) {
-                metadata.setContentType(file.getContentType());
-            }
+    @Override
+    protected String putMultipartObject(String objectName, InputStream inputStream, long size, String contentType,
+                                        String checkpointKey) throws Exception {
+        // 分片大小和并发数根据文件大小和吞吐量调整
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.ALIYUN);
+        // 只读取一次文件，分片并发上传，OSS会按照分片号排序组成完整的文件。
+        // 分片号取值范围是1~10000，除了最后一个分片，其他的分片最小为100 KB。
+        return multipartUploadTemplate.upload(multipartOperations(contentType), inputStream, size, plan.getPartSize(),
+                plan.getParallelism(), partLimits().getMaxParts(), objectName, checkpointKey);
+    }
 
-            // 初始化分片。
-            InitiateMultipartUploadResult upresult = ossClient.initiateMultipartUpload(request);
-            // 返回uploadId。
-            String uploadId = upresult.getUploadId();
-            // 根据uploadId执行取消分片上传事件或者列举已上传分片的操作。
-            // 如果您需要根据uploadId执行取消分片上传事件的操作，您需要在调用InitiateMultipartUpload完成初始化分片之后获取uploadId。
-            // 如果您需要根据uploadId执行列举已上传分片的操作，您需要在调用InitiateMultipartUpload完成初始化分片之后，且在调用CompleteMultipartUpload完成分片上传之前获取uploadId。
-            // System.out.println(uploadId);
+    @Override
+    protected String putMultipartFile(String objectName, Path file, long size, String contentType,
+                                      String checkpointKey) throws Exception {
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.ALIYUN);
+        // 每个分片的请求体按位置从文件读取
+        return multipartUploadTemplate.upload(multipartOperations(contentType), file, size, plan.getPartSize(),
+                plan.getParallelism(), objectName, checkpointKey);
+    }
 
-            // partETags是PartETag的集合。PartETag由分片的ETag和分片号组成。
-            List<PartETag> partETags = new ArrayList<PartETag>();
-            // 每个分片的大小，用于计算文件有多少个分片。单位为字节。
-            final long partSize = 5 * 1024 * 1024L;   //5 MB。
-
-            // 根据上传的数据大小计算分片数。以本地文件为例，说明如何通过File.length()获取上传数据的大小。
-            long fileLength = file.getSize();
-            int partCount = (int) (fileLength / partSize);
-            if (fileLength % partSize != 0) {
-                partCount++;
-            }
-            // 遍历分片上传。
-            for (int i = 0; i < partCount; i++) {
-                long startPos = i * partSize;
-                long curPartSize = (i + 1 == partCount) ? (fileLength - startPos) : partSize;
-                UploadPartRequest uploadPartRequest = new UploadPartRequest();
-                uploadPartRequest.setBucketName(properties.getBucket());
-                uploadPartRequest.setKey(fileName);
-                uploadPartRequest.setUploadId(uploadId);
-                // 设置上传的分片流。
-                // 以本地文件为例说明如何创建FIleInputstream，并通过InputStream.skip()方法跳过指定数据。
-                InputStream instream = file.getInputStream();
-                instream.skip(startPos);
-                uploadPartRequest.setInputStream(instream);
-                // 设置分片大小。除了最后一个分片没有大小限制，其他的分片最小为100 KB。
-                uploadPartRequest.setPartSize(curPartSize);
-                // 设置分片号。每一个上传的分片都有一个分片号，取值范围是1~10000，如果超出此范围，OSS将返回InvalidArgument错误码。
-                uploadPartRequest.setPartNumber(i + 1);
-                // 每个分片不需要按顺序上传，甚至可以在不同客户端上传，OSS会按照分片号排序组成完整的文件。
-                UploadPartResult uploadPartResult = ossClient.uploadPart(uploadPartRequest);
-                // 每次上传分片之后，OSS的返回结果包含PartETag。PartETag将被保存在partETags中。
-                partETags.add(uploadPartResult.getPartETag());
-            }
-            // 创建CompleteMultipartUploadRequest对象。
-            // 在执行完成分片上传操作时，需要提供所有有效的partETags。OSS收到提交的partETags后，会逐一验证每个分片的有效性。当所有的数据分片验证通过后，OSS将把这些分片组合成一个完整的文件。
-            CompleteMultipartUploadRequest completeMultipartUploadRequest =
-                    new CompleteMultipartUploadRequest(properties.getBucket(), fileName, uploadId, partETags);
-            // 完成分片上传。
-            CompleteMultipartUploadResult completeMultipartUploadResult = ossClient.completeMultipartUpload(completeMultipartUploadRequest);
-            url = getUrl(fileName);
-            log.info("==>上传文件至阿里云成功，访问路径：{}", url);
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
-        }
-        return url;
+    /**
+     * 阿里云分片上传接口，单个分片失败时只重试该分片
+     */
+    @Override
+    protected MultipartOperations multipartOperations(String contentType) {
+        return new RetryingMultipartOperations(new MeteredMultipartOperations(
+                new AliyunMultipartOperations(contentType), ossMetrics, partSizePlanner, provider()),
+                retryPolicy, provider());
     }
 
     /**
      * 删除碎片文件
-     * @param uploadId
-     * @param ossClient
-     * @param fileName
+     *
+     * @param uploadId 分片上传ID
+     * @param fileName 文件名称
      */
-    private void deleteTempFile(String uploadId, OSS ossClient, String fileName) {
+    private void deleteTempFile(String uploadId, String fileName) {
         // 取消分片上传。
         AbortMultipartUploadRequest abortMultipartUploadRequest =
                 new AbortMultipartUploadRequest(properties.getBucket(), fileName, uploadId);
         ossClient.abortMultipartUpload(abortMultipartUploadRequest);
     }
 
+    /**
+     * 阿里云分片上传接口
+     */
+    private class AliyunMultipartOperations implements MultipartOperations {
+
+        private final String contentType;
+
+        private AliyunMultipartOperations(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String initiate(String objectName) {
+            // 创建InitiateMultipartUploadRequest对象。
+            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(properties.getBucket(), objectName);
+            // 根据文件设置ContentType。如果不设置，ContentType默认值为application/octet-stream。
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            request.setObjectMetadata(metadata);
+            // 初始化分片，返回uploadId。
+            return ossClient.initiateMultipartUpload(request).getUploadId();
+        }
+
+        @Override
+        public Map<Integer, String> listParts(String objectName, String uploadId) {
+            Map<Integer, String> parts = new HashMap<>();
+            ListPartsRequest request = new ListPartsRequest(properties.getBucket(), objectName, uploadId);
+            PartListing partListing;
+            do {
+                partListing = ossClient.listParts(request);
+                for (PartSummary part : partListing.getParts()) {
+                    parts.put(part.getPartNumber(), part.getETag());
+                }
+                request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+            } while (partListing.isTruncated());
+            return parts;
+        }
+
+        @Override
+        public String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws IOException {
+            try (InputStream inputStream = data.openStream()) {
+                return transferClient.uploadPart(new UploadPartRequest(properties.getBucket(), objectName, uploadId, partNumber,
+                        inputStream, data.getLength())).getETag();
+            }
+        }
+
+        @Override
+        public void complete(String objectName, String uploadId, List<UploadedPart> parts) {
+            // partETags是PartETag的集合。PartETag由分片的ETag和分片号组成。
+            List<PartETag> partETags = parts.stream()
+                    .map(part -> new PartETag(part.getPartNumber(), part.getEtag()))
+                    .collect(Collectors.toList());
+            // 在执行完成分片上传操作时，需要提供所有有效的partETags。OSS收到提交的partETags后，会逐一验证每个分片的有效性。
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(properties.getBucket(), objectName, uploadId, partETags));
+        }
+
+        @Override
+        public void abort(String objectName, String uploadId) {
+            deleteTempFile(uploadId, objectName);
+        }
+    }
+
+    @Override
+    protected PartLimits partLimits() {
+        return PartLimits.ALIYUN;
+    }
 
     /**
-     * 获取文件名称
-     *
-     * @param file 上传的文件
-     * @return
+     * 使用URL签名，签名在本地计算，不访问服务端；上传时Content-Type参与签名，客户端必须携带相同的请求头
      */
-    private static String getFileName(MultipartFile file) {
-        //文件的原始名称
-        String originalFilename = file.getOriginalFilename();
-        //生成存储对象的名称（将UUID中的“-"替换成“”）
-        String key = UUID.randomUUID().toString().replace("-", "");
-        //获取文件后缀
-        String suffix = originalFilename.substring(originalFilename.lastIndexOf("."));
-        // 获取当前日期
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd/");
-        String dateString = today.format(formatter);
-        //拼接上下文后缀
-        return String.format("%S%s%s", dateString, key, suffix);
+    @Override
+    protected PresignedUrl presignObject(String objectName, String method, String contentType,
+                                         long expireSeconds) {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(properties.getBucket(), objectName,
+                "PUT".equals(method) ? HttpMethod.PUT : HttpMethod.GET);
+        request.setExpiration(new Date(expiresAt));
+        Map<String, String> headers = new HashMap<>();
+        if (StringUtils.hasLength(contentType)) {
+            request.setContentType(contentType);
+            headers.put("Content-Type", contentType);
+        }
+        String url = ossClient.generatePresignedUrl(request).toString();
+        return new PresignedUrl(objectName, method, url, headers, Collections.emptyMap(), expiresAt);
+    }
+
+    @Override
+    protected PresignedUrl presignPartUpload(String objectName, String uploadId, int partNumber,
+                                             long expireSeconds) {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(properties.getBucket(), objectName,
+                HttpMethod.PUT);
+        request.setExpiration(new Date(expiresAt));
+        request.addQueryParameter("uploadId", uploadId);
+        request.addQueryParameter("partNumber", String.valueOf(partNumber));
+        String url = ossClient.generatePresignedUrl(request).toString();
+        return new PresignedUrl(objectName, "PUT", url, Collections.emptyMap(), Collections.emptyMap(), expiresAt);
+    }
+
+    @Override
+    protected String provider() {
+        return "aliyun";
     }
 
     /**
@@ -205,7 +459,8 @@ public class AliyunClient implements OssClient {
      * @param objectName
      * @return
      */
-    private String getUrl(String objectName) {
+    @Override
+    protected String getUrl(String objectName) {
         String endpoint = properties.getEndpoint();
         int secondSlashIndex = endpoint.indexOf("/", endpoint.indexOf("/") + 1);
         endpoint = endpoint.substring(0, secondSlashIndex + 1) + properties.getBucket() + '.' + endpoint.substring(secondSlashIndex + 1);
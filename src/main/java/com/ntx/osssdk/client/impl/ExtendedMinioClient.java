@@ -0,0 +1,203 @@
+package com.ntx.osssdk.client.impl;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.ntx.osssdk.multipart.PartData;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.Xml;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.util.StringUtils;
+
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @ClassName ExtendedMinioClient
+ * @Author ntx
+ * @Description 暴露minio底层S3分片上传接口的客户端，与原客户端共享连接池和凭证
+ */
+class ExtendedMinioClient extends MinioClient {
+
+    /**
+     * 条件读取使用的预签名链接有效期（秒），链接生成后立即使用
+     */
+    private static final int CONDITIONAL_GET_EXPIRY_SECONDS = 600;
+
+    /**
+     * 原客户端使用的OkHttp客户端
+     */
+    private final OkHttpClient httpClient;
+
+    ExtendedMinioClient(MinioClient client, OkHttpClient httpClient) {
+        super(client);
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param bucket      桶名
+     * @param objectName  对象名称
+     * @param contentType 文件类型
+     * @return uploadId
+     * @throws Exception 异常
+     */
+    String initiateMultipartUpload(String bucket, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (StringUtils.hasLength(contentType)) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUpload(bucket, null, objectName, headers, null).result().uploadId();
+    }
+
+    /**
+     * 上传分片
+     *
+     * @param bucket     桶名
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片号
+     * @param data       分片数据
+     * @return 分片ETag
+     * @throws Exception 异常
+     */
+    String uploadPart(String bucket, String objectName, String uploadId, int partNumber, PartData data) throws Exception {
+        if (data.isBuffered()) {
+            return uploadPart(bucket, null, objectName, data.getBuffer(), data.getLength(), uploadId, partNumber,
+                    null, null).etag();
+        }
+        // minio计算摘要后回到当前位置，发送时从文件通道读取，不需要整个分片的缓冲区
+        try (RandomAccessFile file = data.openFile()) {
+            return uploadPart(bucket, null, objectName, file, data.getLength(), uploadId, partNumber, null, null).etag();
+        }
+    }
+
+    /**
+     * 完成分片上传，服务端按分片号合并
+     *
+     * @param bucket     桶名
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param parts      已上传的分片
+     * @throws Exception 异常
+     */
+    void completeMultipartUpload(String bucket, String objectName, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUpload(bucket, null, objectName, uploadId, parts, null, null);
+    }
+
+    /**
+     * 取消分片上传，删除已上传的分片
+     *
+     * @param bucket     桶名
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @throws Exception 异常
+     */
+    void abortMultipartUpload(String bucket, String objectName, String uploadId) throws Exception {
+        abortMultipartUpload(bucket, null, objectName, uploadId, null, null);
+    }
+
+    /**
+     * 列举已上传的分片
+     *
+     * @param bucket     桶名
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @return 分片号 -> ETag
+     * @throws Exception 上传不存在时抛出异常
+     */
+    Map<Integer, String> listUploadedParts(String bucket, String objectName, String uploadId) throws Exception {
+        Map<Integer, String> parts = new HashMap<>();
+        Integer marker = null;
+        ListPartsResult result;
+        do {
+            result = listParts(bucket, null, objectName, 1000, marker, uploadId, null, null).result();
+            for (Part part : result.partList()) {
+                parts.put(part.partNumber(), part.etag());
+            }
+            marker = result.nextPartNumberMarker();
+        } while (result.isTruncated());
+        return parts;
+    }
+
+    /**
+     * 条件读取对象，有ETag时按ETag判断，否则按修改时间判断。minio客户端把304当作错误且不保留响应码，
+     * 因此通过预签名链接用同一个OkHttp客户端发出请求，按响应码判断内容是否变化
+     *
+     * @param bucket       桶名
+     * @param objectName   对象名称
+     * @param etag         本地副本的ETag，为null时不带条件
+     * @param lastModified 本地副本的修改时间（毫秒），etag为null且大于0时按修改时间判断
+     * @return 响应，内容未变化时返回null
+     * @throws Exception 异常
+     */
+    Response getObjectIfChanged(String bucket, String objectName, String etag, long lastModified)
+            throws Exception {
+        String url = getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET)
+                .bucket(bucket)
+                .object(objectName)
+                .expiry(CONDITIONAL_GET_EXPIRY_SECONDS)
+                .build());
+        Request.Builder builder = new Request.Builder().url(url);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        } else if (lastModified > 0) {
+            builder.header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+        }
+        Response response = httpClient.newCall(builder.build()).execute();
+        if (response.code() == 304) {
+            response.close();
+            return null;
+        }
+        ResponseBody body = response.body();
+        if (response.isSuccessful() && body != null) {
+            return response;
+        }
+        // 与minio客户端一致，按响应中的错误码抛出，使重试策略可以按错误码判断
+        try {
+            String content = body == null ? "" : body.string();
+            String code = response.code() == 404 ? "NoSuchKey" : "HTTP" + response.code();
+            ErrorResponse error = content.isEmpty()
+                    ? new ErrorResponse(code, response.message(), bucket, objectName, objectName,
+                    response.header("x-amz-request-id"), response.header("x-amz-id-2"))
+                    : Xml.unmarshal(ErrorResponse.class, content);
+            throw new ErrorResponseException(error, response, null);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * 列举一页对象
+     *
+     * @param bucket            桶名
+     * @param prefix            前缀
+     * @param delimiter         分隔符
+     * @param maxKeys           每页数量
+     * @param continuationToken 上一页返回的续传标记，第一页为null
+     * @return 列举结果
+     * @throws Exception 异常
+     */
+    ListBucketResultV2 listObjectsPage(String bucket, String prefix, String delimiter, int maxKeys,
+                                       String continuationToken) throws Exception {
+        return listObjectsV2(bucket, null, delimiter, null, null, maxKeys, prefix, continuationToken,
+                false, false, null, null).result();
+    }
+}
@@ -1,24 +1,63 @@
 package com.ntx.osssdk.client.impl;
 
-import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.client.AbstractOssClient;
+import com.ntx.osssdk.config.MinioConfig;
+import com.ntx.osssdk.listing.ObjectPage;
+import com.ntx.osssdk.model.ObjectContent;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.multipart.MeteredMultipartOperations;
+import com.ntx.osssdk.multipart.MultipartOperations;
+import com.ntx.osssdk.multipart.MultipartUploadTemplate;
+import com.ntx.osssdk.multipart.PartData;
+import com.ntx.osssdk.multipart.PartLimits;
+import com.ntx.osssdk.multipart.RangeDownloadEngine;
+import com.ntx.osssdk.multipart.RetryingMultipartOperations;
+import com.ntx.osssdk.multipart.UploadPlan;
+import com.ntx.osssdk.multipart.UploadedPart;
 import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.retry.RetryPolicy;
 import com.ntx.osssdk.utils.MinioUtil;
-import io.minio.*;
+import com.ntx.osssdk.utils.OkHttpUtil;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -27,17 +66,64 @@ import java.util.stream.Collectors;
  * @Description minio client
  */
 @Slf4j
-public class MinioClients implements OssClient {
-    //minio每个分片不能低于5MB，最后一个分片可以不管 13MB文件可分成3个分片 5MB 5MB 3MB
-    private static final int PART_SIZE = 5 * 1024 * 1024;
+public class MinioClients extends AbstractOssClient {
     @Resource
     private MinioClient minioClient;
 
-    @Resource
-    private Properties properties;
     @Resource
     private MinioUtil minioUtil;
 
+    @Resource
+    private MultipartUploadTemplate multipartUploadTemplate;
+
+
+    @Resource
+    private RetryPolicy retryPolicy;
+
+    @Resource
+    private RangeDownloadEngine rangeDownloadEngine;
+
+    /**
+     * 共享minioClient连接池的分片上传客户端
+     */
+    private ExtendedMinioClient s3Client;
+
+    /**
+     * minioClient使用的OkHttp客户端
+     */
+    @Resource
+    private OkHttpClient minioHttpClient;
+
+    /**
+     * 使用独立配置时创建的OkHttp客户端，容器中的minioClient不需要关闭
+     */
+    private OkHttpClient dedicatedHttpClient;
+
+    @PostConstruct
+    public void init() {
+        s3Client = new ExtendedMinioClient(minioClient, minioHttpClient);
+    }
+
+    /**
+     * 使用独立的配置时连接该配置指定的minio服务
+     *
+     * @param properties 配置
+     */
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        OkHttpUtil.close(dedicatedHttpClient);
+        dedicatedHttpClient = MinioConfig.newHttpClient(properties);
+        minioHttpClient = dedicatedHttpClient;
+        minioClient = MinioConfig.newMinioClient(properties, dedicatedHttpClient);
+        minioUtil = new MinioUtil(minioClient, properties);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        OkHttpUtil.close(dedicatedHttpClient);
+    }
+
     /**
      * 上传文件
      *
@@ -51,21 +137,93 @@ public class MinioClients implements OssClient {
             log.error("==> 上传文件异常，文件大小为空...");
             throw new RuntimeException("文件大小为空");
         }
-        String objectName = getFileName(file);
+        return uploadObject("upload", file,
+                (objectName, inputStream) -> putObject(objectName, inputStream, file.getSize(), file.getContentType()));
+    }
 
+    /**
+     * 上传输入流
+     *
+     * @param objectName  对象名称
+     * @param inputStream 输入流
+     * @param size        文件大小
+     * @param contentType 文件类型
+     * @return 对象名称
+     */
+    @Override
+    protected String putObject(String objectName, InputStream inputStream, long size, String contentType) throws Exception {
         log.info("==>开始上传文件至minio，ObjectName:{}", objectName);
-        //文件的Content-Type
-        String contentType = file.getContentType();
         //上传文件至minio
         minioClient.putObject(PutObjectArgs.builder()
                 .bucket(properties.getBucket())
                 .object(objectName)
-                .stream(file.getInputStream(), file.getSize(), -1)
+                .stream(inputStream, size, -1)
                 .contentType(contentType)
                 .build());
-        return getUrl(objectName);
+        return objectName;
     }
 
+    /**
+     * 批量删除对象，一次DeleteObjects请求最多1000个对象
+     *
+     * @param objectNames 对象名称
+     * @return 删除失败的对象名称及原因
+     * @throws Exception 异常
+     */
+    @Override
+    protected Map<String, String> deleteObjects(List<String> objectNames) throws Exception {
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).collect(Collectors.toList());
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                .bucket(properties.getBucket())
+                .objects(objects)
+                .build());
+        // removeObjects是惰性执行的，遍历结果时才会发送请求
+        Map<String, String> errors = new HashMap<>();
+        for (Result<DeleteError> result : results) {
+            DeleteError error = result.get();
+            errors.put(error.objectName(), error.message());
+        }
+        return errors;
+    }
+
+    /**
+     * 超过5GB的对象由SDK自动改为分片复制
+     */
+    @Override
+    protected void copyObject(String source, String target) throws Exception {
+        minioClient.copyObject(CopyObjectArgs.builder()
+                .bucket(properties.getBucket())
+                .object(target)
+                .source(CopySource.builder().bucket(properties.getBucket()).object(source).build())
+                .build());
+    }
+
+    @Override
+    protected ObjectStat statObject(String objectName) throws Exception {
+        StatObjectResponse response = minioClient.statObject(StatObjectArgs.builder()
+                .bucket(properties.getBucket())
+                .object(objectName)
+                .build());
+        return new ObjectStat(objectName, response.size(), response.etag(), response.contentType(),
+                response.lastModified().toInstant().toEpochMilli());
+    }
+
+    /**
+     * 使用ListObjectsV2按续传标记逐页列举
+     */
+    @Override
+    protected ObjectPage listPage(String prefix, String delimiter, int pageSize, String marker) throws Exception {
+        ListBucketResultV2 result = s3Client.listObjectsPage(properties.getBucket(), prefix, delimiter, pageSize, marker);
+        List<ObjectSummary> items = new ArrayList<>(result.contents().size() + result.commonPrefixes().size());
+        for (Item item : result.contents()) {
+            items.add(new ObjectSummary(item.objectName(), item.size(), item.etag(),
+                    item.lastModified().toInstant().toEpochMilli(), false));
+        }
+        for (Prefix prefixItem : result.commonPrefixes()) {
+            items.add(ObjectSummary.directory(prefixItem.toItem().objectName()));
+        }
+        return new ObjectPage(items, result.isTruncated() ? result.nextContinuationToken() : null);
+    }
 
     /**
      * 文件下载到指定路径
@@ -89,18 +247,69 @@ public class MinioClients implements OssClient {
         downloadPath += fileName;
         //获取文件路径
         String remotePath = String.format("%s/%s/", properties.getEndpoint(),properties.getBucket());
-        objectName = objectName.replace(remotePath, "");
-
-        minioClient.downloadObject(
-                DownloadObjectArgs.builder()
-                        .bucket(properties.getBucket()) //指定是在哪一个桶下载
-                        .object(objectName)//是minio中文件存储的名字;本地上传的文件是user.xlsx到minio中存储的是user-minio,那么这里就是user-minio
-                        .filename(downloadPath)//需要下载到本地的路径，一定是带上保存的文件名；如 d:\\minio\\user.xlsx
-                        .build());
+        //是minio中文件存储的名字;本地上传的文件是user.xlsx到minio中存储的是user-minio,那么这里就是user-minio
+        String object = objectName.replace(remotePath, "");
+        Path target = Paths.get(downloadPath);
+        // 与minio的downloadObject一致，不覆盖已存在的文件
+        record("download", () -> target.toFile().length(), () -> fetchObject(object, target,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
         log.info("==>下载成功，访问路径：{}", downloadPath);
         return true;
     }
 
+    /**
+     * 条件读取时由存储服务比较ETag，内容未变化返回304，不传输数据
+     */
+    @Override
+    protected ObjectContent openObject(String objectName, String etag, long lastModified) throws Exception {
+        okhttp3.Response response = s3Client.getObjectIfChanged(properties.getBucket(), objectName, etag, lastModified);
+        if (response == null) {
+            return null;
+        }
+        ResponseBody body = response.body();
+        Date modified = response.headers().getDate("Last-Modified");
+        return new ObjectContent(body.byteStream(), body.contentLength(), response.header("ETag"),
+                modified == null ? 0 : modified.getTime());
+    }
+
+    /**
+     * 分片下载文件，按字节范围并发下载
+     *
+     * @param downloadPath 下载到本地路径
+     * @param objectName   下载的文件名称
+     * @return boolean
+     */
+    @Override
+    public boolean downloadFile(String downloadPath, String objectName) throws Exception {
+        if (downloadPath.isEmpty() || !StringUtils.hasLength(objectName)) {
+            throw new RuntimeException("下载文件参数不全！");
+        }
+        if (!new File(downloadPath).isDirectory()) {
+            throw new RuntimeException("本地下载路径必须是一个文件夹或者文件路径！");
+        }
+        String fileName = objectName.substring(objectName.lastIndexOf("/"));
+        Path target = Paths.get(downloadPath + fileName);
+        //获取文件路径
+        String remotePath = String.format("%s/%s/", properties.getEndpoint(), properties.getBucket());
+        String object = objectName.replace(remotePath, "");
+        // 下载前获取最新的大小，不使用缓存
+        long size = statObject(object).getSize();
+        Properties.Download download = properties.getDownload();
+        record("downloadFile", () -> size, () -> {
+            rangeDownloadEngine.download(provider(), target, size, download.getRangeSize(), download.getConcurrency(),
+                    download.getMaxRetries(), download.getBufferSize(),
+                    (start, end) -> minioClient.getObject(GetObjectArgs.builder()
+                            .bucket(properties.getBucket())
+                            .object(object)
+                            .offset(start)
+                            .length(end - start + 1)
+                            .build()));
+            return true;
+        });
+        log.info("==>下载成功，访问路径：{}", target);
+        return true;
+    }
+
     /**
      *
      *  分片上传文件
@@ -110,124 +319,134 @@ public class MinioClients implements OssClient {
      */
     @Override
     public String uploadFile(MultipartFile file) throws Exception {
+        //判断文件是否为空
+        if (file == null || file.getSize() == 0 || file.isEmpty()) {
+            log.error("==> 上传文件异常，文件大小为空...");
+            throw new RuntimeException("文件大小为空");
+        }
+        //同一文件再次上传时根据断点记录续传
+        String checkpointKey = MultipartUploadTemplate.checkpointKey(provider(), properties.getBucket(),
+                file.getOriginalFilename(), file.getSize());
+        return uploadObject("uploadFile", file, (objectName, inputStream) -> putMultipartObject(
+                objectName, inputStream, file.getSize(), file.getContentType(), checkpointKey));
+    }
 
-        String fileName = getFileName(file);//获取文件名称
-        long startTime = System.currentTimeMillis() / 1000;
-        //获取文件流
-        InputStream inputStream = file.getInputStream();
-        //获取文件大小
-        long fileSize = file.getSize();
-        //计算分片数量
-        int partCount = (int) (fileSize / PART_SIZE);
-        if (fileSize % PART_SIZE > 0) {
-            partCount++;
-        }
-        long partTime = System.currentTimeMillis() / 1000;
-        System.out.println("分片耗时" + (partTime - startTime));
-        //存放分片流
-        List<InputStream> parts = new ArrayList<>();
-        //存放分片minio地址
-        List<String> fileList = new ArrayList<>();
-        //分配分片流
-        for (int i = 0; i < partCount; i++) {
-            // 每次只需要从原始文件InputStream中读取指定大小的数据即可
-            byte[] partData = new byte[PART_SIZE];
-            int read = inputStream.read(partData);
-            if (read == -1) {
-                break; // 文件已经读完了
-            }
-            // 将读取的数据作为一个新的InputStream添加到parts列表中
-            parts.add(new ByteArrayInputStream(partData, 0, read));
-        }
-        long readTime = System.currentTimeMillis() / 1000;
-        System.out.println("读取文件耗时" + (readTime - partTime));
-        //上传分片流到minio
-        for (int i = 0; i < parts.size(); i++) {
-            // 构建每个part的object name
-            String partObjectName = fileName + ".part" + i;
-            fileList.add(partObjectName);
-            InputStream partStream = parts.get(i);
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(properties.getBucket())
-                    .object(partObjectName)
-                    .stream(partStream, partStream.available(), -1)
-                    .contentType(file.getContentType())
-                    .build();
-            ObjectWriteResponse objectWriteResponse = minioClient.putObject(args);
-            //System.out.println("分片上传结果======++++++"+objectWriteResponse);
-        }
-        long upLoadTime = System.currentTimeMillis() / 1000;
-        System.out.println("上传分片耗时" + (upLoadTime - readTime));
-        //关闭主文件输入流和分片输入流
-        inputStream.close();
-        for (InputStream part : parts) {
-            part.close();
-        }
-        //获取需要合并的分片组装成ComposeSource
-        List<ComposeSource> sourceObjectList = new ArrayList<>(fileList.size());
-        for (String chunk : fileList) {
-            sourceObjectList.add(
-                    ComposeSource.builder()
-                            .bucket(properties.getBucket())
-                            .object(chunk)
-                            .build()
-            );
+    @Override
+    protected String putMultipartObject(String objectName, InputStream inputStream, long size, String contentType,
+                                        String checkpointKey) throws Exception {
+        //minio每个分片不能低于5MB，最后一个分片可以不管，分片大小和并发数根据文件大小和吞吐量调整
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.MINIO);
+        //只读取一次文件流，内存中最多同时存在 parallelism 个分片
+        return multipartUploadTemplate.upload(multipartOperations(contentType), inputStream, size, plan.getPartSize(),
+                plan.getParallelism(), partLimits().getMaxParts(), objectName, checkpointKey);
+    }
+
+    @Override
+    protected String putMultipartFile(String objectName, Path file, long size, String contentType,
+                                      String checkpointKey) throws Exception {
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.MINIO);
+        //分片以RandomAccessFile交给minio，请求体直接从文件读取
+        return multipartUploadTemplate.upload(multipartOperations(contentType), file, size, plan.getPartSize(),
+                plan.getParallelism(), objectName, checkpointKey);
+    }
+
+    /**
+     * 使用S3分片上传，服务端直接按分片号合并，不再上传分片对象后compose；单个分片失败时只重试该分片
+     */
+    @Override
+    protected MultipartOperations multipartOperations(String contentType) {
+        return new RetryingMultipartOperations(new MeteredMultipartOperations(
+                new MinioMultipartOperations(contentType), ossMetrics, partSizePlanner, provider()),
+                retryPolicy, provider());
+    }
+
+    /**
+     * minio分片上传接口
+     */
+    private class MinioMultipartOperations implements MultipartOperations {
+
+        private final String contentType;
+
+        private MinioMultipartOperations(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String initiate(String objectName) throws Exception {
+            return s3Client.initiateMultipartUpload(properties.getBucket(), objectName, contentType);
+        }
+
+        @Override
+        public Map<Integer, String> listParts(String objectName, String uploadId) throws Exception {
+            return s3Client.listUploadedParts(properties.getBucket(), objectName, uploadId);
+        }
+
+        @Override
+        public String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws Exception {
+            return s3Client.uploadPart(properties.getBucket(), objectName, uploadId, partNumber, data);
+        }
+
+        @Override
+        public void complete(String objectName, String uploadId, List<UploadedPart> parts) throws Exception {
+            Part[] partArray = parts.stream()
+                    .map(part -> new Part(part.getPartNumber(), part.getEtag()))
+                    .toArray(Part[]::new);
+            s3Client.completeMultipartUpload(properties.getBucket(), objectName, uploadId, partArray);
+        }
+
+        @Override
+        public void abort(String objectName, String uploadId) throws Exception {
+            s3Client.abortMultipartUpload(properties.getBucket(), objectName, uploadId);
         }
-        //合并分片
-        ComposeObjectArgs composeObjectArgs = ComposeObjectArgs.builder()
+    }
+
+    @Override
+    protected PartLimits partLimits() {
+        return PartLimits.MINIO;
+    }
+
+    /**
+     * 使用S3 V4查询参数签名，签名在本地计算，不访问服务端
+     */
+    @Override
+    protected PresignedUrl presignObject(String objectName, String method, String contentType,
+                                         long expireSeconds) throws Exception {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method("PUT".equals(method) ? Method.PUT : Method.GET)
                 .bucket(properties.getBucket())
-                //合并后的文件的objectname
-                .object(fileName)
-                //指定源文件
-                .sources(sourceObjectList)
-                .build();
-        minioClient.composeObject(composeObjectArgs);
-        long mergeTime = System.currentTimeMillis() / 1000;
-        System.out.println("合并分片耗时" + (mergeTime - upLoadTime));
-        //删除已经上传的分片，组装成DeleteObject
-        List<DeleteObject> collect = fileList.stream().map(DeleteObject::new).collect(Collectors.toList());
-        //执行删除
-        RemoveObjectsArgs removeObjectsArgs = RemoveObjectsArgs.builder()
+                .object(objectName)
+                .expiry((int) expireSeconds, TimeUnit.SECONDS)
+                .build());
+        //Content-Type不参与签名，仅提示客户端上传时携带，使对象保存正确的文件类型
+        Map<String, String> headers = new HashMap<>();
+        if (StringUtils.hasLength(contentType)) {
+            headers.put("Content-Type", contentType);
+        }
+        return new PresignedUrl(objectName, method, url, headers, Collections.emptyMap(), expiresAt);
+    }
+
+    @Override
+    protected PresignedUrl presignPartUpload(String objectName, String uploadId, int partNumber,
+                                             long expireSeconds) throws Exception {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("uploadId", uploadId);
+        queryParams.put("partNumber", String.valueOf(partNumber));
+        String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.PUT)
                 .bucket(properties.getBucket())
-                .objects(collect)
-                .build();
-        Iterable<Result<DeleteError>> results = minioClient.removeObjects(removeObjectsArgs);
-        //如果没有下面try的代码，文件史删除不了的，加上下面的代码就可以删除了
-        try {
-            for (Result<DeleteError> result : results) {
-                DeleteError deleteError = result.get();
-                System.out.println("error in deleteing object" + deleteError.objectName() + ";" + deleteError.message());
-            }
-        } catch (Exception e) {
-            System.out.println("minio删除文件失败");
-            e.printStackTrace();
-        }
-        long deleteTime = System.currentTimeMillis() / 1000;
-        System.out.println("删除分片耗时" + (deleteTime - mergeTime));
-        return getUrl(fileName);
-    }
-
-    /**
-     * 获取文件名称
-     *
-     * @param file 上传的文件
-     * @return
-     */
-    private static String getFileName(MultipartFile file) {
-        //文件的原始名称
-        String originalFilename = file.getOriginalFilename();
-        //生成存储对象的名称（将UUID中的“-"替换成“”）
-        String key = UUID.randomUUID().toString().replace("-", "");
-        //获取文件后缀
-        String suffix = originalFilename.substring(originalFilename.lastIndexOf("."));
-        // 获取当前日期
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd/");
-        String dateString = today.format(formatter);
-        //拼接上下文后缀
-        return String.format("%S%s%s", dateString, key, suffix);
+                .object(objectName)
+                .extraQueryParams(queryParams)
+                .expiry((int) expireSeconds, TimeUnit.SECONDS)
+                .build());
+        return new PresignedUrl(objectName, "PUT", url, Collections.emptyMap(), Collections.emptyMap(), expiresAt);
     }
 
+    @Override
+    protected String provider() {
+        return "minio";
+    }
 
     /**
      * 获取上传文件后的访问路径
@@ -235,10 +454,9 @@ public class MinioClients implements OssClient {
      * @param objectName
      * @return
      */
-    private String getUrl(String objectName) {
+    @Override
+    protected String getUrl(String objectName) {
         //返回文件的访问链接
-        String url = String.format("%s/%s/%s", properties.getEndpoint(), properties.getBucket(), objectName);
-        log.info("==>上传文件至minio成功，访问路径：{}", url);
-        return url;
+        return String.format("%s/%s/%s", properties.getEndpoint(), properties.getBucket(), objectName);
     }
 }
@@ -1,26 +1,72 @@
 package com.ntx.osssdk.client.impl;
 
-import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.cache.TtlCache;
+import com.ntx.osssdk.cache.UploadTokenCache;
+import com.ntx.osssdk.client.AbstractOssClient;
+import com.ntx.osssdk.listing.ObjectPage;
+import com.ntx.osssdk.model.ObjectContent;
+import com.ntx.osssdk.model.ObjectStat;
+import com.ntx.osssdk.model.ObjectSummary;
+import com.ntx.osssdk.model.PresignedUrl;
+import com.ntx.osssdk.multipart.MeteredMultipartOperations;
+import com.ntx.osssdk.multipart.MultipartOperations;
+import com.ntx.osssdk.multipart.PartData;
+import com.ntx.osssdk.multipart.PartLimits;
+import com.ntx.osssdk.multipart.RangeDownloadEngine;
+import com.ntx.osssdk.multipart.UploadPlan;
+import com.ntx.osssdk.multipart.UploadedPart;
 import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.retry.RetryPolicy;
+import com.ntx.osssdk.utils.OkHttpUtil;
+import com.qiniu.http.Client;
 import com.qiniu.http.Response;
+import com.qiniu.storage.ApiQueryRegion;
+import com.qiniu.storage.ApiUploadV2AbortUpload;
+import com.qiniu.storage.ApiUploadV2CompleteUpload;
+import com.qiniu.storage.ApiUploadV2InitUpload;
+import com.qiniu.storage.ApiUploadV2ListParts;
+import com.qiniu.storage.ApiUploadV2UploadPart;
+import com.qiniu.storage.BucketManager;
+import com.qiniu.storage.ConcurrentResumeUploader;
 import com.qiniu.storage.Configuration;
+import com.qiniu.storage.FormUploader;
 import com.qiniu.storage.Region;
-import com.qiniu.storage.UploadManager;
+import com.qiniu.storage.ResumeUploader;
+import com.qiniu.storage.model.BatchStatus;
+import com.qiniu.storage.model.FileInfo;
+import com.qiniu.storage.model.FileListing;
 import com.qiniu.storage.persistent.FileRecorder;
 import com.qiniu.util.Auth;
+import com.qiniu.util.StringMap;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.ResponseBody;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @ClassName QiniuClient
@@ -28,9 +74,105 @@ import java.util.UUID;
  * @Description 七牛云对象存储客户端
  */
 @Slf4j
-public class QiniuClients implements OssClient {
+public class QiniuClients extends AbstractOssClient {
     @Resource
-    private Properties properties;
+    private RangeDownloadEngine rangeDownloadEngine;
+
+    @Resource
+    private RetryPolicy retryPolicy;
+
+
+    /**
+     * 共享的上传配置，区域只解析一次
+     */
+    private Configuration configuration;
+
+    /**
+     * 断点续传进度记录
+     */
+    private FileRecorder fileRecorder;
+
+    /**
+     * 空间管理器，用于批量删除、列举和查询元数据
+     */
+    private BucketManager bucketManager;
+
+    /**
+     * 上传凭证缓存
+     */
+    private UploadTokenCache uploadTokenCache;
+
+    /**
+     * 鉴权对象，用于生成上传凭证和私有下载地址
+     */
+    private Auth auth;
+
+    /**
+     * 共享的上传客户端，表单上传、各分片大小的分片上传、分片接口和空间管理使用同一个连接池
+     */
+    private Client apiClient;
+
+    /**
+     * 查询区域信息的七牛云配置服务
+     */
+    private static final String UC_HOST = "uc.qiniuapi.com";
+
+    /**
+     * 桶所在区域的上传地址，按区域查询结果缓存
+     */
+    private final TtlCache<String, String> upHostCache = new TtlCache<>(3600 * 1000L, 16);
+
+    /**
+     * 共享的下载客户端
+     */
+    private OkHttpClient httpClient;
+
+    /**
+     * 初始化上传配置、上传管理器和凭证缓存
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Properties.Qiniu qiniu = properties.getQiniu();
+        // 构造一个带指定 Region 对象的配置类
+        configuration = new Configuration(resolveRegion(qiniu.getRegion()));
+        configuration.resumableUploadAPIVersion = Configuration.ResumableUploadAPIVersion.V2;// 指定分片上传版本
+        // 不使用七牛云SDK自身的重试，可重复读取的上传由重试策略重试并计量
+        configuration.retryMax = 0;
+        // 上传客户端的连接池和并发与下载客户端使用相同的配置
+        Properties.Http http = properties.getHttp();
+        configuration.connectionPoolMaxIdleCount = http.getMaxIdleConnections();
+        configuration.connectionPoolMaxIdleMinutes = (int) Math.max(1, http.getKeepAliveSeconds() / 60);
+        configuration.dispatcherMaxRequests = http.getMaxRequests();
+        configuration.dispatcherMaxRequestsPerHost = http.getMaxRequestsPerHost();
+        String localTempDir = Paths.get(System.getProperty("java.io.tmpdir"), properties.getBucket()).toString();
+        //设置断点续传文件进度保存目录
+        fileRecorder = new FileRecorder(localTempDir);
+        //创建Auth对象，填写ak和sk
+        auth = Auth.create(properties.getAccessKey(), properties.getSecretKey());
+        apiClient = new Client(configuration);
+        bucketManager = new BucketManager(auth, configuration, apiClient);
+        uploadTokenCache = new UploadTokenCache(auth, qiniu.getTokenExpireSeconds(), qiniu.getTokenRefreshAheadSeconds());
+        httpClient = OkHttpUtil.newClient(properties.getHttp());
+        ossMetrics.bindCache(provider(), backendName(), "uploadToken",
+                uploadTokenCache::getHitCount, uploadTokenCache::getMissCount);
+    }
+
+    /**
+     * 容器关闭时释放下载客户端的连接池和线程
+     */
+    @PreDestroy
+    public void destroy() {
+        OkHttpUtil.close(httpClient);
+    }
+
+    /**
+     * 获取上传凭证缓存，可用于查看命中情况
+     *
+     * @return 上传凭证缓存
+     */
+    public UploadTokenCache getUploadTokenCache() {
+        return uploadTokenCache;
+    }
 
     /**
      * 上传文件
@@ -46,19 +188,34 @@ public class QiniuClients implements OssClient {
             log.error("==> 上传文件异常，文件大小为空...");
             throw new RuntimeException("文件大小为空");
         }
-        String objectName = getFileName(file);
         // 从 MultipartFile 直接获取输入流，避免先保存到本地再上传
-        InputStream inputStream = file.getInputStream();
-        // 构造一个带指定 Region 对象的配置类
-        Configuration zone = new Configuration(Region.autoRegion());//我们刚开始选的是华南地区
-        //创建Auth对象，填写ak和sk
-        Auth auth = Auth.create(properties.getAccessKey(), properties.getSecretKey());
+        return uploadObject("upload", file,
+                (objectName, inputStream) -> putObject(objectName, inputStream, file.getSize(), file.getContentType()));
+    }
+
+    /**
+     * 上传输入流，已知大小且小于表单上传阈值时只发起一次请求
+     *
+     * @param objectName  对象名称
+     * @param inputStream 输入流
+     * @param size        文件大小
+     * @param contentType 文件类型
+     * @return 对象名称
+     * @throws Exception 异常
+     */
+    @Override
+    protected String putObject(String objectName, InputStream inputStream, long size, String contentType) throws Exception {
         //获得上传凭证
-        String upToken = auth.uploadToken(properties.getBucket());
-        log.debug("==>获取上传凭证成功:" + upToken);
-        UploadManager uploadManager = new UploadManager(zone);
-        Response response = uploadManager.put(inputStream, objectName, upToken, null, null);
-        return getUrl(objectName);
+        String upToken = uploadTokenCache.get(properties.getBucket());
+        if (size > configuration.putThreshold) {
+            UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.QINIU);
+            resumableUploader(plan, upToken, objectName, inputStream, contentType).upload();
+            return objectName;
+        }
+        byte[] data = StreamUtils.copyToByteArray(inputStream);
+        retryPolicy.execute(provider(), "upload", data.length, () -> new FormUploader(apiClient, upToken, objectName,
+                data, new StringMap(), contentType, false, configuration).upload());
+        return objectName;
     }
 
     /**
@@ -77,35 +234,133 @@ public class QiniuClients implements OssClient {
         if (!new File(downloadPath).isDirectory()) {
             throw new RuntimeException("本地下载路径必须是一个文件夹或者文件路径！");
         }
-        OkHttpClient client = new OkHttpClient();
-        Request req = new Request.Builder().url(objectName).build();
-        okhttp3.Response resp = null;
-        String fileName = objectName.substring(objectName.lastIndexOf("/"));
-        try {
-            resp = client.newCall(req).execute();
-            System.out.println(resp.isSuccessful());
-            if (resp.isSuccessful()) {
-                ResponseBody body = resp.body();
-                InputStream is = body.byteStream();
-                byte[] data = readInputStream(is);
-                //判断文件夹是否存在，不存在则创建
-                File file = new File(downloadPath);
-                if (!file.exists() && !file.isDirectory()) {
-                    System.out.println("===文件夹不存在===创建====");
-                    file.mkdir();
-                }
-                File imgFile = new File(downloadPath + fileName);
-                FileOutputStream fops = new FileOutputStream(imgFile);
-                fops.write(data);
-                fops.close();
+        Path target = localFile(downloadPath, resolveUrl(objectName));
+        // 直接从响应流写入文件，不在内存中缓存整个文件
+        record("download", () -> target.toFile().length(), () -> fetchObject(objectName, target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        log.info("==>下载成功，访问路径：{}", target);
+        return true;
+    }
+
+    /**
+     * 按访问地址读取，条件读取时携带If-None-Match或If-Modified-Since，内容未变化返回304
+     *
+     * @param objectName 文件访问地址或对象名称
+     */
+    @Override
+    protected ObjectContent openObject(String objectName, String etag, long lastModified) throws Exception {
+        Request.Builder builder = new Request.Builder()
+                .url(resolveUrl(objectName));
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        } else if (lastModified > 0) {
+            builder.header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+        }
+        okhttp3.Response resp = httpClient.newCall(builder.build()).execute();
+        ResponseBody body = resp.body();
+        if (resp.code() == 304) {
+            resp.close();
+            return null;
+        }
+        if (!resp.isSuccessful() || body == null) {
+            resp.close();
+            log.error("==>下载文件失败，响应：{}", resp);
+            throw new RuntimeException("下载文件失败，响应码：" + resp.code());
+        }
+        Date modified = resp.headers().getDate("Last-Modified");
+        return new ObjectContent(body.byteStream(), body.contentLength(), resp.header("ETag"),
+                modified == null ? 0 : modified.getTime());
+    }
+
+    /**
+     * 分片下载文件，按字节范围并发下载
+     *
+     * @param downloadPath 下载路径
+     * @param objectName   文件访问地址或对象名称
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public boolean downloadFile(String downloadPath, String objectName) throws Exception {
+        if (downloadPath.isEmpty() || !StringUtils.hasLength(objectName)) {
+            throw new RuntimeException("下载文件参数不全！");
+        }
+        if (!new File(downloadPath).isDirectory()) {
+            throw new RuntimeException("本地下载路径必须是一个文件夹或者文件路径！");
+        }
+        String url = resolveUrl(objectName);
+        Path target = localFile(downloadPath, url);
+        long size;
+        Request head = new Request.Builder().url(url).head().build();
+        try (okhttp3.Response resp = httpClient.newCall(head).execute()) {
+            String contentLength = resp.header("Content-Length");
+            if (!resp.isSuccessful() || contentLength == null) {
+                throw new RuntimeException("获取文件大小失败，响应码：" + resp.code());
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("Unexpected code " + resp);
+            size = Long.parseLong(contentLength);
         }
+        Properties.Download download = properties.getDownload();
+        long length = size;
+        record("downloadFile", () -> length, () -> {
+            rangeDownloadEngine.download(provider(), target, length, download.getRangeSize(), download.getConcurrency(),
+                    download.getMaxRetries(), download.getBufferSize(), (start, end) -> openRange(url, start, end));
+            return true;
+        });
+        log.info("==>下载成功，访问路径：{}", target);
         return true;
     }
 
+    /**
+     * 对象名称转换为访问地址，已经是访问地址时不变
+     *
+     * @param objectName 文件访问地址或对象名称
+     * @return 访问地址
+     */
+    private String resolveUrl(String objectName) {
+        return objectName.startsWith("http") ? objectName : getUrl(objectName);
+    }
+
+    /**
+     * 下载到本地的文件路径，文件名取访问地址路径的最后一段，不包含查询参数
+     *
+     * @param downloadPath 下载路径
+     * @param url          文件访问地址
+     * @return 本地文件路径
+     */
+    private Path localFile(String downloadPath, String url) {
+        List<String> segments = HttpUrl.get(url).pathSegments();
+        String fileName = segments.get(segments.size() - 1);
+        if (fileName.isEmpty()) {
+            throw new RuntimeException("无法从访问地址获取文件名：" + url);
+        }
+        return Paths.get(downloadPath, fileName);
+    }
+
+    /**
+     * 发起Range请求，返回指定字节范围的响应流
+     *
+     * @param url   文件访问地址
+     * @param start 起始位置
+     * @param end   结束位置
+     * @return 响应流，关闭时释放连接
+     * @throws IOException IO异常
+     */
+    private InputStream openRange(String url, long start, long end) throws IOException {
+        Request req = new Request.Builder()
+                .url(url)
+                .header("Range", "bytes=" + start + "-" + end)
+                .build();
+        okhttp3.Response resp = httpClient.newCall(req).execute();
+        ResponseBody body = resp.body();
+        // 只接受206，服务端忽略Range返回整个文件时不能按位置写入
+        if (resp.code() != 206 || body == null) {
+            resp.close();
+            throw new IOException("范围下载失败，响应码：" + resp.code());
+        }
+        return body.byteStream();
+    }
+
     /**
      * 分片上传文件
      *
@@ -120,74 +375,337 @@ public class QiniuClients implements OssClient {
             log.error("==> 上传文件异常，文件大小为空...");
             throw new RuntimeException("文件大小为空");
         }
-        String objectName = getFileName(file);
-        //构造一个带指定 Region 对象的配置类
-        Configuration cfg = new Configuration(Region.autoRegion());
-        cfg.resumableUploadAPIVersion = Configuration.ResumableUploadAPIVersion.V2;// 指定分片上传版本
-        cfg.resumableUploadMaxConcurrentTaskCount = 2;  // 设置分片上传并发，1：采用同步上传；大于1：采用并发上传
-        Auth auth = Auth.create(properties.getAccessKey(), properties.getSecretKey());
-        String upToken = auth.uploadToken(properties.getBucket());
-        String localTempDir = Paths.get(System.getenv("java.io.tmpdir"), properties.getBucket()).toString();
-        //设置断点续传文件进度保存目录
-        FileRecorder fileRecorder = new FileRecorder(localTempDir);
-        UploadManager uploadManager = new UploadManager(cfg, fileRecorder);
-        Response response = uploadManager.put(file.getInputStream(), objectName, upToken, null, null);
-        return getUrl(objectName);
+        return uploadObject("uploadFile", file, (objectName, inputStream) -> putMultipartObject(
+                objectName, inputStream, file.getSize(), file.getContentType(), null));
     }
 
     /**
-     * 获取文件名称
+     * 分片上传输入流，断点续传由七牛云SDK的进度记录完成。输入流不能重复读取，失败时不重试
+     */
+    @Override
+    protected String putMultipartObject(String objectName, InputStream inputStream, long size, String contentType,
+                                        String checkpointKey) throws Exception {
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.QINIU);
+        String upToken = uploadTokenCache.get(properties.getBucket());
+        long start = System.nanoTime();
+        resumableUploader(plan, upToken, objectName, inputStream, contentType).upload();
+        if (size > 0) {
+            // 七牛云SDK不暴露单个分片的耗时，按整个文件的平均值估算单路吞吐量
+            partSizePlanner.record(provider(), size / plan.getParallelism(), System.nanoTime() - start);
+        }
+        return objectName;
+    }
+
+    /**
+     * 分片上传本地文件，七牛云SDK按块的位置直接读取文件
+     */
+    @Override
+    protected String putMultipartFile(String objectName, Path file, long size, String contentType,
+                                      String checkpointKey) throws Exception {
+        if (properties.getThrottle().getUploadBytesPerSecond() > 0) {
+            // 七牛云SDK直接读取文件时无法限速，开启上传限速时改为读取限速后的输入流
+            try (InputStream inputStream = bandwidthLimiter.throttleUpload(Files.newInputStream(file), size)) {
+                return putMultipartObject(objectName, inputStream, size, contentType, checkpointKey);
+            }
+        }
+        UploadPlan plan = partSizePlanner.plan(provider(), size, PartLimits.QINIU);
+        String upToken = uploadTokenCache.get(properties.getBucket());
+        long start = System.nanoTime();
+        // 重试时按进度记录从已上传的块之后继续，最多重新上传并发中的分片
+        retryPolicy.execute(provider(), "uploadFile", plan.getPartSize() * plan.getParallelism(), () -> {
+            ResumeUploader uploader = plan.getParallelism() > 1
+                    ? new ConcurrentResumeUploader(apiClient, upToken, objectName, file.toFile(), new StringMap(),
+                    contentType, fileRecorder, planConfiguration(plan))
+                    : new ResumeUploader(apiClient, upToken, objectName, file.toFile(), new StringMap(), contentType,
+                    fileRecorder, planConfiguration(plan));
+            return uploader.upload();
+        });
+        partSizePlanner.record(provider(), size / plan.getParallelism(), System.nanoTime() - start);
+        return objectName;
+    }
+
+    /**
+     * 创建上传输入流的分片上传器，使用共享的上传客户端
      *
-     * @param file 上传的文件
-     * @return
+     * @param plan        分片上传计划
+     * @param upToken     上传凭证
+     * @param objectName  对象名称
+     * @param inputStream 输入流
+     * @param contentType 文件类型
+     * @return ResumeUploader
      */
-    private static String getFileName(MultipartFile file) {
-        //文件的原始名称
-        String originalFilename = file.getOriginalFilename();
-        //生成存储对象的名称（将UUID中的“-"替换成“”）
-        String key = UUID.randomUUID().toString().replace("-", "");
-        //获取文件后缀
-        String suffix = originalFilename.substring(originalFilename.lastIndexOf("."));
-        // 获取当前日期
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd/");
-        String dateString = today.format(formatter);
-        //拼接上下文后缀
-        return String.format("%s%s%s", dateString, key, suffix);
+    private ResumeUploader resumableUploader(UploadPlan plan, String upToken, String objectName, InputStream inputStream,
+                                             String contentType) {
+        Configuration planConfiguration = planConfiguration(plan);
+        return plan.getParallelism() > 1
+                ? new ConcurrentResumeUploader(apiClient, upToken, objectName, inputStream, new StringMap(), contentType,
+                planConfiguration)
+                : new ResumeUploader(apiClient, upToken, objectName, inputStream, new StringMap(), contentType,
+                planConfiguration);
     }
 
+    /**
+     * 按分片上传计划复制上传配置，只设置分片大小和并发数，不创建新的连接池
+     *
+     * @param plan 分片上传计划
+     * @return Configuration
+     */
+    private Configuration planConfiguration(UploadPlan plan) {
+        Configuration planConfiguration = configuration.clone();
+        planConfiguration.resumableUploadAPIV2BlockSize = (int) plan.getPartSize();
+        // 设置分片上传并发，1：采用同步上传；大于1：采用并发上传
+        planConfiguration.resumableUploadMaxConcurrentTaskCount = plan.getParallelism();
+        return planConfiguration;
+    }
 
     /**
-     * 获取上传文件后的访问路径
+     * 解析存储区域
      *
-     * @param objectName
-     * @return
+     * @param region 区域配置，auto表示自动探测
+     * @return Region
      */
-    private String getUrl(String objectName) {
-        //返回文件的访问链接
-        String url = String.format("%s/%s", properties.getEndpoint(), objectName);
-        log.info("==>上传文件至七牛云成功，访问路径：{}", url);
-        return url;
+    private static Region resolveRegion(String region) {
+        if (!StringUtils.hasLength(region) || "auto".equalsIgnoreCase(region)) {
+            return Region.autoRegion();
+        }
+        return Region.createWithRegionId(region);
     }
 
     /**
-     * 读取字节输入流内容
+     * 批量删除对象，一次batch请求最多1000个操作
      *
-     * @param is
-     * @return
+     * @param objectNames 对象名称
+     * @return 删除失败的对象名称及原因
+     * @throws Exception 异常
      */
-    private static byte[] readInputStream(InputStream is) {
-        ByteArrayOutputStream writer = new ByteArrayOutputStream();
-        byte[] buff = new byte[1024 / 2];
-        int len = 0;
-        try {
-            while ((len = is.read(buff)) != -1) {
-                writer.write(buff, 0, len);
+    @Override
+    protected Map<String, String> deleteObjects(List<String> objectNames) throws Exception {
+        BucketManager.BatchOperations operations = new BucketManager.BatchOperations()
+                .addDeleteOp(properties.getBucket(), objectNames.toArray(new String[0]));
+        Response response = bucketManager.batch(operations);
+        // 部分操作失败时返回298，每个操作的结果与请求顺序一致
+        BatchStatus[] statuses = response.jsonToObject(BatchStatus[].class);
+        Map<String, String> errors = new HashMap<>();
+        for (int i = 0; i < objectNames.size(); i++) {
+            BatchStatus status = statuses[i];
+            // 612表示对象不存在，与其他服务商一致视为删除成功
+            if (status.code != 200 && status.code != 612) {
+                errors.put(objectNames.get(i), status.data != null && status.data.error != null
+                        ? status.data.error : "删除失败，状态码：" + status.code);
             }
-            is.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return writer.toByteArray();
+        return errors;
+    }
+
+    @Override
+    protected void copyObject(String source, String target) throws Exception {
+        bucketManager.copy(properties.getBucket(), source, properties.getBucket(), target, true);
+    }
+
+    @Override
+    protected ObjectStat statObject(String objectName) throws Exception {
+        FileInfo info = bucketManager.stat(properties.getBucket(), objectName);
+        // putTime单位为100纳秒
+        return new ObjectStat(objectName, info.fsize, info.hash, info.mimeType, info.putTime / 10000);
+    }
+
+    /**
+     * 按marker逐页列举，每页最多1000个
+     */
+    @Override
+    protected ObjectPage listPage(String prefix, String delimiter, int pageSize, String marker) throws Exception {
+        FileListing listing = bucketManager.listFiles(properties.getBucket(), prefix, marker, pageSize, delimiter);
+        int prefixes = listing.commonPrefixes == null ? 0 : listing.commonPrefixes.length;
+        int files = listing.items == null ? 0 : listing.items.length;
+        List<ObjectSummary> items = new ArrayList<>(files + prefixes);
+        for (int i = 0; i < files; i++) {
+            FileInfo info = listing.items[i];
+            // putTime单位为100纳秒
+            items.add(new ObjectSummary(info.key, info.fsize, info.hash, info.putTime / 10000, false));
+        }
+        for (int i = 0; i < prefixes; i++) {
+            items.add(ObjectSummary.directory(listing.commonPrefixes[i]));
+        }
+        return new ObjectPage(items, listing.isEOF() ? null : listing.marker);
+    }
+
+    @Override
+    protected PartLimits partLimits() {
+        return PartLimits.QINIU;
+    }
+
+    /**
+     * 七牛云上传使用上传凭证而不是URL签名：上传返回表单上传的地址和表单字段，文件类型取表单中file部分的Content-Type；
+     * 下载返回私有空间下载地址
+     */
+    @Override
+    protected PresignedUrl presignObject(String objectName, String method, String contentType,
+                                         long expireSeconds) throws Exception {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        if (!"PUT".equals(method)) {
+            String url = auth.privateDownloadUrl(getUrl(objectName), expireSeconds);
+            return new PresignedUrl(objectName, "GET", url, Collections.emptyMap(), Collections.emptyMap(), expiresAt);
+        }
+        // 凭证限定对象名称，客户端不能上传到其他位置
+        String upToken = auth.uploadToken(properties.getBucket(), objectName, expireSeconds, null);
+        Map<String, String> formFields = new HashMap<>();
+        formFields.put("token", upToken);
+        formFields.put("key", objectName);
+        return new PresignedUrl(objectName, "POST", upHost(upToken), Collections.emptyMap(),
+                formFields, expiresAt);
+    }
+
+    /**
+     * 七牛云分片上传V2接口，请求头中携带上传凭证
+     */
+    @Override
+    protected PresignedUrl presignPartUpload(String objectName, String uploadId, int partNumber,
+                                             long expireSeconds) throws Exception {
+        long expiresAt = System.currentTimeMillis() + expireSeconds * 1000;
+        String upToken = auth.uploadToken(properties.getBucket(), objectName, expireSeconds, null);
+        ApiUploadV2UploadPart.Request request = new ApiUploadV2UploadPart.Request(
+                upHost(upToken), upToken, uploadId, partNumber).setKey(objectName);
+        Map<String, String> headers = new HashMap<>();
+        // Host由客户端的HTTP库按地址设置，只返回需要携带的凭证
+        request.getHeader().forEach((name, value) -> {
+            if (!"Host".equalsIgnoreCase(name)) {
+                headers.put(name, String.valueOf(value));
+            }
+        });
+        headers.put("Content-Type", "application/octet-stream");
+        return new PresignedUrl(objectName, "PUT", request.getUrl().toString(), headers, Collections.emptyMap(),
+                expiresAt);
+    }
+
+    /**
+     * 获取桶所在区域的上传地址：优先使用配置的地址，否则按上传凭证查询区域信息，结果按桶缓存
+     *
+     * @param upToken 上传凭证
+     * @return 含协议的上传地址
+     * @throws Exception 查询失败
+     */
+    private String upHost(String upToken) throws Exception {
+        String configured = properties.getQiniu().getUpHost();
+        if (StringUtils.hasLength(configured)) {
+            return configured;
+        }
+        return upHostCache.get(properties.getBucket(), bucket -> {
+            String scheme = configuration.useHttpsDomains ? "https://" : "http://";
+            List<String> hosts = new ApiQueryRegion(apiClient)
+                    .request(new ApiQueryRegion.Request(scheme + UC_HOST, upToken))
+                    .getDefaultRegionUpHosts();
+            if (hosts == null || hosts.isEmpty()) {
+                throw new RuntimeException("未查询到七牛云上传域名：" + bucket);
+            }
+            return hosts.get(0).startsWith("http") ? hosts.get(0) : scheme + hosts.get(0);
+        });
+    }
+
+    /**
+     * 客户端直传使用的分片上传接口，上传凭证限定对象名称
+     */
+    @Override
+    protected MultipartOperations multipartOperations(String contentType) {
+        return new MeteredMultipartOperations(new QiniuMultipartOperations(contentType), ossMetrics, partSizePlanner,
+                provider());
+    }
+
+    /**
+     * 七牛云分片上传V2接口
+     */
+    private class QiniuMultipartOperations implements MultipartOperations {
+
+        private final String contentType;
+
+        private QiniuMultipartOperations(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String initiate(String objectName) throws Exception {
+            String upToken = uploadTokenCache.get(properties.getBucket(), objectName);
+            ApiUploadV2InitUpload.Request request = new ApiUploadV2InitUpload.Request(
+                    upHost(upToken), upToken).setKey(objectName);
+            return new ApiUploadV2InitUpload(apiClient).request(request).getUploadId();
+        }
+
+        @Override
+        public Map<Integer, String> listParts(String objectName, String uploadId) throws Exception {
+            String upToken = uploadTokenCache.get(properties.getBucket(), objectName);
+            String upHost = upHost(upToken);
+            Map<Integer, String> parts = new HashMap<>();
+            Integer marker = null;
+            do {
+                ApiUploadV2ListParts.Request request = new ApiUploadV2ListParts.Request(upHost, upToken, uploadId)
+                        .setKey(objectName).setMaxParts(1000);
+                if (marker != null) {
+                    request.setPartNumberMarker(marker);
+                }
+                ApiUploadV2ListParts.Response response = new ApiUploadV2ListParts(apiClient).request(request);
+                List<?> page = response.getParts();
+                if (page != null) {
+                    for (Object item : page) {
+                        Map<?, ?> part = (Map<?, ?>) item;
+                        parts.put(((Number) part.get("partNumber")).intValue(), String.valueOf(part.get("etag")));
+                    }
+                }
+                marker = response.getPartNumberMarker();
+            } while (marker != null && marker > 0);
+            return parts;
+        }
+
+        @Override
+        public String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws Exception {
+            String upToken = uploadTokenCache.get(properties.getBucket(), objectName);
+            try (InputStream inputStream = data.openStream()) {
+                ApiUploadV2UploadPart.Request request = new ApiUploadV2UploadPart.Request(
+                        upHost(upToken), upToken, uploadId, partNumber).setKey(objectName)
+                        .setUploadData(inputStream, "application/octet-stream", data.getLength());
+                return new ApiUploadV2UploadPart(apiClient).request(request).getEtag();
+            }
+        }
+
+        @Override
+        public void complete(String objectName, String uploadId, List<UploadedPart> parts) throws Exception {
+            String upToken = uploadTokenCache.get(properties.getBucket(), objectName);
+            List<Map<String, Object>> partInfo = new ArrayList<>(parts.size());
+            for (UploadedPart part : parts) {
+                Map<String, Object> info = new HashMap<>();
+                info.put(ApiUploadV2CompleteUpload.Request.PART_NUMBER, part.getPartNumber());
+                info.put(ApiUploadV2CompleteUpload.Request.PART_ETG, part.getEtag());
+                partInfo.add(info);
+            }
+            ApiUploadV2CompleteUpload.Request request = new ApiUploadV2CompleteUpload.Request(
+                    upHost(upToken), upToken, uploadId, partInfo).setKey(objectName);
+            if (StringUtils.hasLength(contentType)) {
+                request.setFileMimeType(contentType);
+            }
+            new ApiUploadV2CompleteUpload(apiClient).request(request);
+        }
+
+        @Override
+        public void abort(String objectName, String uploadId) throws Exception {
+            String upToken = uploadTokenCache.get(properties.getBucket(), objectName);
+            ApiUploadV2AbortUpload.Request request = new ApiUploadV2AbortUpload.Request(
+                    upHost(upToken), upToken, uploadId).setKey(objectName);
+            new ApiUploadV2AbortUpload(apiClient).request(request);
+        }
+    }
+
+    @Override
+    protected String provider() {
+        return "qiniu";
+    }
+
+    /**
+     * 获取上传文件后的访问路径
+     *
+     * @param objectName
+     * @return
+     */
+    @Override
+    protected String getUrl(String objectName) {
+        //返回文件的访问链接
+        return String.format("%s/%s", properties.getEndpoint(), objectName);
     }
 }
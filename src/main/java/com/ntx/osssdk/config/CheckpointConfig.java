@@ -0,0 +1,28 @@
+package com.ntx.osssdk.config;
+
+import com.ntx.osssdk.multipart.CheckpointStore;
+import com.ntx.osssdk.multipart.LocalFileCheckpointStore;
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.Resource;
+
+/**
+ * @ClassName CheckpointConfig
+ * @Author ntx
+ * @Description 断点续传配置，自定义CheckpointStore后替换默认的本地文件存储
+ */
+@Configuration
+public class CheckpointConfig {
+
+    @Resource
+    private Properties properties;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CheckpointStore checkpointStore() {
+        return new LocalFileCheckpointStore(properties.getMultipart().getCheckpointDir());
+    }
+}
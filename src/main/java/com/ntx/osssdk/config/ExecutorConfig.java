@@ -0,0 +1,55 @@
+package com.ntx.osssdk.config;
+
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.Resource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName ExecutorConfig
+ * @Author ntx
+ * @Description 传输线程池配置
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Resource
+    private Properties properties;
+
+    /**
+     * 分片传输线程池，所有文件的分片共享，单个文件的并发由分片引擎控制
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ossPartExecutor() {
+        int threads = properties.getMultipart().getThreads();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("oss-part-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 异步传输线程池，有界队列，可注册同名Bean替换（如虚拟线程线程池）
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "ossTransferExecutor")
+    public ExecutorService ossTransferExecutor() {
+        Properties.Async async = properties.getAsync();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("oss-transfer-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(async.getThreads(), async.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
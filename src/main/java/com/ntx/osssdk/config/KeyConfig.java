@@ -0,0 +1,29 @@
+package com.ntx.osssdk.config;
+
+import com.ntx.osssdk.key.DefaultObjectKeyGenerator;
+import com.ntx.osssdk.key.ObjectKeyGenerator;
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.Resource;
+import java.time.ZoneId;
+
+/**
+ * @ClassName KeyConfig
+ * @Author ntx
+ * @Description 对象名称生成配置，自定义ObjectKeyGenerator后替换默认实现
+ */
+@Configuration
+public class KeyConfig {
+
+    @Resource
+    private Properties properties;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ObjectKeyGenerator objectKeyGenerator() {
+        return new DefaultObjectKeyGenerator(properties.getKey().getShardPrefixLength(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,38 @@
+package com.ntx.osssdk.config;
+
+import com.ntx.osssdk.metrics.MicrometerOssMetrics;
+import com.ntx.osssdk.metrics.NoopOssMetrics;
+import com.ntx.osssdk.metrics.OssMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName MetricsConfig
+ * @Author ntx
+ * @Description 传输指标配置，引入Micrometer且存在MeterRegistry时自动注册指标，否则使用空实现
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerMetricsConfig {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OssMetrics ossMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry == null ? new NoopOssMetrics() : new MicrometerOssMetrics(registry);
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OssMetrics noopOssMetrics() {
+        return new NoopOssMetrics();
+    }
+}
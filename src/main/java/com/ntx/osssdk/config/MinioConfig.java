@@ -1,11 +1,15 @@
 package com.ntx.osssdk.config;
 
 import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.utils.OkHttpUtil;
 import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.Resource;
+import java.util.Collections;
 
 /**
  * @ClassName MinioConfig
@@ -20,9 +24,43 @@ public class MinioConfig {
 
     @Bean
     public MinioClient minioClient(){
+        return newMinioClient(properties, minioHttpClient());
+    }
+
+    /**
+     * minio客户端使用的OkHttp客户端，条件读取等minio客户端不支持的请求也通过它发出，共享同一个连接池
+     *
+     * @return OkHttpClient
+     */
+    @Bean
+    public OkHttpClient minioHttpClient() {
+        return newHttpClient(properties);
+    }
+
+    /**
+     * 创建minio使用的OkHttp客户端，使用可配置的连接池，批量上传时并发请求可复用连接
+     *
+     * @param properties 配置
+     * @return OkHttpClient
+     */
+    public static OkHttpClient newHttpClient(Properties properties) {
+        return OkHttpUtil.newClient(properties.getHttp()).newBuilder()
+                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                .build();
+    }
+
+    /**
+     * 创建minio客户端
+     *
+     * @param properties 配置
+     * @param httpClient OkHttp客户端
+     * @return MinioClient
+     */
+    public static MinioClient newMinioClient(Properties properties, OkHttpClient httpClient) {
         return MinioClient.builder()
                 .endpoint(properties.getEndpoint())
                 .credentials(properties.getAccessKey(), properties.getSecretKey())
+                .httpClient(httpClient)
                 .build();
     }
 }
@@ -0,0 +1,68 @@
+package com.ntx.osssdk.hedge;
+
+/**
+ * @ClassName LatencyTracker
+ * @Author ntx
+ * @Description 请求延迟的平滑平均值和平均偏差，计算方法同TCP重传超时（RFC 6298）
+ */
+public class LatencyTracker {
+
+    private static final double ALPHA = 0.125;
+
+    private static final double BETA = 0.25;
+
+    /**
+     * 平滑平均延迟（纳秒）
+     */
+    private double average;
+
+    /**
+     * 平均偏差（纳秒）
+     */
+    private double deviation;
+
+    private long samples;
+
+    /**
+     * 记录一次成功请求的延迟
+     *
+     * @param nanos 延迟（纳秒）
+     */
+    public synchronized void record(long nanos) {
+        if (samples++ == 0) {
+            average = nanos;
+            deviation = nanos / 2.0;
+            return;
+        }
+        deviation += BETA * (Math.abs(average - nanos) - deviation);
+        average += ALPHA * (nanos - average);
+    }
+
+    /**
+     * 平滑平均延迟
+     *
+     * @return 纳秒，没有记录时为0
+     */
+    public synchronized double getAverageNanos() {
+        return average;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * 超过该延迟仍未返回的请求视为长尾请求：平均延迟 + 4倍平均偏差
+     *
+     * @param minNanos 下限
+     * @param maxNanos 上限，没有记录时使用
+     * @return 纳秒
+     */
+    public synchronized long tailNanos(long minNanos, long maxNanos) {
+        if (samples == 0) {
+            return maxNanos;
+        }
+        long tail = (long) (average + 4 * deviation);
+        return Math.min(maxNanos, Math.max(minNanos, tail));
+    }
+}
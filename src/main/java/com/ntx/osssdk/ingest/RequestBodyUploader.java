@@ -0,0 +1,78 @@
+package com.ntx.osssdk.ingest;
+
+import com.ntx.osssdk.client.OssClient;
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Locale;
+
+/**
+ * @ClassName RequestBodyUploader
+ * @Author ntx
+ * @Description 把HTTP原始请求体直接上传到存储服务：不经过Spring的multipart解析，不在本地磁盘暂存，
+ * 接收客户端数据与上传分片同时进行
+ */
+@Component
+public class RequestBodyUploader {
+
+    /**
+     * 传递原始文件名的请求头，值需URL编码
+     */
+    public static final String FILENAME_HEADER = "X-File-Name";
+
+    @Resource
+    private OssClient ossClient;
+
+    @Resource
+    private Properties properties;
+
+    /**
+     * 上传请求体，原始文件名取自X-File-Name请求头
+     *
+     * @param request 请求，请求体为文件内容本身（如application/octet-stream），不能是multipart/form-data
+     * @return url
+     * @throws Exception 异常
+     */
+    public String upload(HttpServletRequest request) throws Exception {
+        return upload(request, decode(request.getHeader(FILENAME_HEADER)));
+    }
+
+    /**
+     * 上传请求体。请求带Content-Length时按已知大小上传，超过一个分片时分片上传并支持断点续传；
+     * 分块传输（大小未知）时边接收边分片上传
+     *
+     * @param request          请求，请求体为文件内容本身，不能是multipart/form-data
+     * @param originalFilename 原始文件名，用于生成对象名称的后缀，可为null
+     * @return url
+     * @throws Exception 异常
+     */
+    public String upload(HttpServletRequest request, String originalFilename) throws Exception {
+        String contentType = request.getContentType();
+        if (request instanceof MultipartHttpServletRequest
+                || (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/"))) {
+            // multipart请求在进入Controller前已被解析并写入临时文件，请求体已读完
+            throw new RuntimeException("流式上传只接受原始请求体，不支持multipart请求");
+        }
+        long length = request.getContentLengthLong();
+        try (InputStream inputStream = request.getInputStream()) {
+            if (length < 0) {
+                return ossClient.uploadStream(inputStream, originalFilename, contentType);
+            }
+            if (length <= properties.getMultipart().getPartSize()) {
+                return ossClient.upload(inputStream, length, originalFilename, contentType);
+            }
+            return ossClient.uploadFile(inputStream, length, originalFilename, contentType);
+        }
+    }
+
+    private static String decode(String filename) throws UnsupportedEncodingException {
+        return StringUtils.hasLength(filename) ? URLDecoder.decode(filename, "UTF-8") : null;
+    }
+}
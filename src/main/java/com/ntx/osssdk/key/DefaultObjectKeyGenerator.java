@@ -0,0 +1,105 @@
+package com.ntx.osssdk.key;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @ClassName DefaultObjectKeyGenerator
+ * @Author ntx
+ * @Description 默认的对象名称生成策略：[分片前缀/]yyyy/MM/dd/32位随机十六进制串.后缀
+ * 日期前缀每天只计算一次，随机串由ThreadLocalRandom生成，不经过SecureRandom，名称不保证不可猜测。
+ * 分片前缀取随机串的前几位，使同一天的写入分散到不同的键范围。
+ */
+public class DefaultObjectKeyGenerator implements ObjectKeyGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int RANDOM_LENGTH = 32;
+
+    /**
+     * 分片前缀的十六进制位数，0表示不加前缀
+     */
+    private final int shardPrefixLength;
+
+    private final ZoneId zone;
+
+    private volatile DatePrefix datePrefix;
+
+    public DefaultObjectKeyGenerator() {
+        this(0, ZoneId.systemDefault());
+    }
+
+    public DefaultObjectKeyGenerator(int shardPrefixLength, ZoneId zone) {
+        if (shardPrefixLength < 0 || shardPrefixLength > 4) {
+            throw new IllegalArgumentException("分片前缀位数必须在0~4之间");
+        }
+        this.shardPrefixLength = shardPrefixLength;
+        this.zone = zone;
+    }
+
+    @Override
+    public String generate(String originalFilename) {
+        String date = datePrefix();
+        String suffix = suffix(originalFilename);
+        char[] random = randomHex();
+        int length = (shardPrefixLength > 0 ? shardPrefixLength + 1 : 0) + date.length() + RANDOM_LENGTH + suffix.length();
+        StringBuilder builder = new StringBuilder(length);
+        if (shardPrefixLength > 0) {
+            builder.append(random, 0, shardPrefixLength).append('/');
+        }
+        return builder.append(date).append(random).append(suffix).toString();
+    }
+
+    /**
+     * 获取当天的日期前缀，跨天时重新计算
+     */
+    private String datePrefix() {
+        long now = System.currentTimeMillis();
+        DatePrefix current = datePrefix;
+        if (current == null || now >= current.expireAt) {
+            LocalDate today = LocalDate.now(zone);
+            String value = String.format("%04d/%02d/%02d/", today.getYear(), today.getMonthValue(), today.getDayOfMonth());
+            current = new DatePrefix(value, today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            datePrefix = current;
+        }
+        return current.value;
+    }
+
+    private static char[] randomHex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[RANDOM_LENGTH];
+        long high = random.nextLong();
+        long low = random.nextLong();
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX[(int) (high >>> (60 - 4 * i)) & 0xF];
+            chars[16 + i] = HEX[(int) (low >>> (60 - 4 * i)) & 0xF];
+        }
+        return chars;
+    }
+
+    /**
+     * 获取文件后缀（含"."），没有后缀时返回空串
+     */
+    public static String suffix(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        int separator = Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\'));
+        return dot > separator ? originalFilename.substring(dot) : "";
+    }
+
+    private static class DatePrefix {
+        private final String value;
+        /**
+         * 下一天开始的时间点
+         */
+        private final long expireAt;
+
+        private DatePrefix(String value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ntx.osssdk.key;
+
+/**
+ * @ClassName ObjectKeyGenerator
+ * @Author ntx
+ * @Description 上传对象名称的生成策略，注册该类型的Bean可替换默认实现
+ */
+public interface ObjectKeyGenerator {
+
+    /**
+     * 根据原始文件名生成对象名称，同一文件名多次调用应返回不同的名称
+     *
+     * @param originalFilename 原始文件名，可能为null或没有后缀
+     * @return 对象名称
+     */
+    String generate(String originalFilename);
+}
@@ -0,0 +1,27 @@
+package com.ntx.osssdk.listing;
+
+import com.ntx.osssdk.model.ObjectSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @ClassName ObjectPage
+ * @Author ntx
+ * @Description 一页列举结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectPage {
+    /**
+     * 本页的对象和目录
+     */
+    private List<ObjectSummary> items;
+    /**
+     * 下一页的起始标记，没有下一页时为null
+     */
+    private String nextMarker;
+}
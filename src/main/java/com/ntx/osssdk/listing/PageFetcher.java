@@ -0,0 +1,19 @@
+package com.ntx.osssdk.listing;
+
+/**
+ * @ClassName PageFetcher
+ * @Author ntx
+ * @Description 按起始标记获取一页列举结果
+ */
+@FunctionalInterface
+public interface PageFetcher {
+
+    /**
+     * 获取一页列举结果
+     *
+     * @param marker 起始标记，第一页为null
+     * @return 列举结果
+     * @throws Exception 异常
+     */
+    ObjectPage fetch(String marker) throws Exception;
+}
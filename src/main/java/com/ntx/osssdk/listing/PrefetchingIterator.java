@@ -0,0 +1,122 @@
+package com.ntx.osssdk.listing;
+
+import com.ntx.osssdk.model.ObjectSummary;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @ClassName PrefetchingIterator
+ * @Author ntx
+ * @Description 分页列举的惰性迭代器，处理当前页时在后台获取下一页，内存中最多保留两页
+ */
+public class PrefetchingIterator implements Iterator<ObjectSummary>, AutoCloseable {
+
+    private final PageFetcher fetcher;
+
+    private final Executor executor;
+
+    private Iterator<ObjectSummary> current = Collections.emptyIterator();
+
+    /**
+     * 正在获取的下一页，没有下一页时为null
+     */
+    private CompletableFuture<ObjectPage> next;
+
+    private boolean started;
+
+    private boolean closed;
+
+    public PrefetchingIterator(PageFetcher fetcher, Executor executor) {
+        this.fetcher = fetcher;
+        this.executor = executor;
+    }
+
+    /**
+     * 转换为顺序流，关闭流时取消预取
+     *
+     * @param fetcher  分页获取
+     * @param executor 预取线程池
+     * @return 对象流
+     */
+    public static Stream<ObjectSummary> stream(PageFetcher fetcher, Executor executor) {
+        PrefetchingIterator iterator = new PrefetchingIterator(fetcher, executor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            next = fetchAsync(null);
+        }
+        while (!current.hasNext()) {
+            if (next == null || closed) {
+                return false;
+            }
+            ObjectPage page = join(next);
+            // 先发起下一页的请求，再交出当前页
+            next = page.getNextMarker() == null ? null : fetchAsync(page.getNextMarker());
+            current = page.getItems().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public ObjectSummary next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.emptyIterator();
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    private CompletableFuture<ObjectPage> fetchAsync(String marker) {
+        CompletableFuture<ObjectPage> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(fetcher.fetch(marker));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时在当前线程获取，列举不因此中断
+            task.run();
+        }
+        return future;
+    }
+
+    private static ObjectPage join(CompletableFuture<ObjectPage> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("列举对象失败", cause);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.ntx.osssdk.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * @ClassName MicrometerOssMetrics
+ * @Author ntx
+ * @Description 基于Micrometer的传输指标，所有指标带provider和operation标签
+ */
+public class MicrometerOssMetrics implements OssMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    /**
+     * 进行中的传输数，按存储服务和操作区分
+     */
+    private final Map<Tags, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存指标读取的计数方法。FunctionCounter只持有弱引用，方法引用没有其他引用，垃圾回收后指标不再更新
+     */
+    private final List<LongSupplier> suppliers = new CopyOnWriteArrayList<>();
+
+    public MicrometerOssMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void transferStarted(String provider, String operation) {
+        inFlight(provider, operation).incrementAndGet();
+    }
+
+    @Override
+    public void transferFinished(String provider, String operation, long nanos, long bytes, boolean success) {
+        inFlight(provider, operation).decrementAndGet();
+        Tags tags = Tags.of("provider", provider, "operation", operation, "outcome", success ? "success" : "failure");
+        Timer.builder("oss.client.transfer")
+                .description("单次传输耗时")
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (!success || bytes <= 0) {
+            return;
+        }
+        Tags byteTags = Tags.of("provider", provider, "operation", operation);
+        DistributionSummary.builder("oss.client.transfer.bytes")
+                .description("单次传输的字节数")
+                .baseUnit("bytes")
+                .tags(byteTags)
+                .register(registry)
+                .record(bytes);
+        if (nanos > 0) {
+            DistributionSummary.builder("oss.client.transfer.throughput")
+                    .description("单次传输的吞吐量")
+                    .baseUnit("bytes/s")
+                    .tags(byteTags)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry)
+                    .record(bytes * 1e9 / nanos);
+        }
+    }
+
+    @Override
+    public void recordPart(String provider, String operation, long nanos, long bytes, boolean success) {
+        Timer.builder("oss.client.part")
+                .description("单个分片或下载范围的耗时")
+                .tags("provider", provider, "operation", operation, "outcome", success ? "success" : "failure")
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (success && bytes > 0) {
+            DistributionSummary.builder("oss.client.part.bytes")
+                    .description("分片或下载范围的字节数")
+                    .baseUnit("bytes")
+                    .tags("provider", provider, "operation", operation)
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+
+    @Override
+    public void recordPhase(String provider, String operation, String phase, long nanos) {
+        Timer.builder("oss.client.phase")
+                .description("分片上传各阶段耗时")
+                .tags("provider", provider, "operation", operation, "phase", phase)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRetry(String provider, String operation, long wastedBytes) {
+        Counter.builder("oss.client.retries")
+                .description("重试次数")
+                .tags("provider", provider, "operation", operation)
+                .register(registry)
+                .increment();
+        Counter.builder("oss.client.retries.bytes")
+                .description("因重试需要重新传输的字节数")
+                .baseUnit("bytes")
+                .tags("provider", provider, "operation", operation)
+                .register(registry)
+                .increment(wastedBytes);
+    }
+
+    @Override
+    public void recordDedup(String provider, String operation, String result, long bytes) {
+        Counter.builder("oss.client.dedup")
+                .description("去重上传次数")
+                .tags("provider", provider, "operation", operation, "result", result)
+                .register(registry)
+                .increment();
+        Counter.builder("oss.client.dedup.bytes")
+                .description("去重上传的字节数")
+                .baseUnit("bytes")
+                .tags("provider", provider, "operation", operation, "result", result)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    @Override
+    public void recordHedge(String backend, String operation, String result) {
+        Counter.builder("oss.client.hedges")
+                .description("多存储服务读取的对冲请求数")
+                .tags("backend", backend, "operation", operation, "result", result)
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void bindCache(String provider, String backend, String cache, LongSupplier hits, LongSupplier misses) {
+        suppliers.add(hits);
+        suppliers.add(misses);
+        FunctionCounter.builder("oss.client.cache.gets", hits, LongSupplier::getAsLong)
+                .description("缓存命中次数")
+                .tags("provider", provider, "backend", backend, "cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("oss.client.cache.gets", misses, LongSupplier::getAsLong)
+                .description("缓存未命中次数")
+                .tags("provider", provider, "backend", backend, "cache", cache, "result", "miss")
+                .register(registry);
+    }
+
+    @Override
+    public void bindCacheBytes(String provider, String backend, String cache, LongSupplier bytes,
+                               LongSupplier evictedBytes) {
+        suppliers.add(evictedBytes);
+        Gauge.builder("oss.client.cache.size", bytes, LongSupplier::getAsLong)
+                .strongReference(true)
+                .description("缓存占用的字节数")
+                .baseUnit("bytes")
+                .tags("provider", provider, "backend", backend, "cache", cache)
+                .register(registry);
+        FunctionCounter.builder("oss.client.cache.evicted", evictedBytes, LongSupplier::getAsLong)
+                .description("缓存淘汰的字节数")
+                .baseUnit("bytes")
+                .tags("provider", provider, "backend", backend, "cache", cache)
+                .register(registry);
+    }
+
+    private AtomicInteger inFlight(String provider, String operation) {
+        Tags tags = Tags.of("provider", provider, "operation", operation);
+        return inFlight.computeIfAbsent(tags, key -> registry.gauge("oss.client.transfer.active", key, new AtomicInteger()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.ntx.osssdk.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * @ClassName NoopOssMetrics
+ * @Author ntx
+ * @Description 未引入Micrometer时使用的空实现
+ */
+public class NoopOssMetrics implements OssMetrics {
+
+    @Override
+    public void transferStarted(String provider, String operation) {
+    }
+
+    @Override
+    public void transferFinished(String provider, String operation, long nanos, long bytes, boolean success) {
+    }
+
+    @Override
+    public void recordPart(String provider, String operation, long nanos, long bytes, boolean success) {
+    }
+
+    @Override
+    public void recordPhase(String provider, String operation, String phase, long nanos) {
+    }
+
+    @Override
+    public void recordRetry(String provider, String operation, long wastedBytes) {
+    }
+
+    @Override
+    public void recordDedup(String provider, String operation, String result, long bytes) {
+    }
+
+    @Override
+    public void recordHedge(String backend, String operation, String result) {
+    }
+
+    @Override
+    public void bindCache(String provider, String backend, String cache, LongSupplier hits, LongSupplier misses) {
+    }
+
+    @Override
+    public void bindCacheBytes(String provider, String backend, String cache, LongSupplier bytes,
+                               LongSupplier evictedBytes) {
+    }
+}
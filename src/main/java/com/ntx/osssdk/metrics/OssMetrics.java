@@ -0,0 +1,101 @@
+package com.ntx.osssdk.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * @ClassName OssMetrics
+ * @Author ntx
+ * @Description 传输指标记录接口，存在MeterRegistry时使用Micrometer实现，否则不记录
+ */
+public interface OssMetrics {
+
+    /**
+     * 传输开始，增加进行中的传输数
+     *
+     * @param provider  存储服务，如minio、aliyun、qiniu
+     * @param operation 操作，如upload、uploadFile、download、downloadFile
+     */
+    void transferStarted(String provider, String operation);
+
+    /**
+     * 传输结束，记录耗时、字节数和吞吐量
+     *
+     * @param provider  存储服务
+     * @param operation 操作
+     * @param nanos     耗时（纳秒）
+     * @param bytes     传输的字节数，失败时为0
+     * @param success   是否成功
+     */
+    void transferFinished(String provider, String operation, long nanos, long bytes, boolean success);
+
+    /**
+     * 记录单个分片或下载范围的耗时
+     *
+     * @param provider  存储服务
+     * @param operation 操作
+     * @param nanos     耗时（纳秒）
+     * @param bytes     分片大小
+     * @param success   是否成功
+     */
+    void recordPart(String provider, String operation, long nanos, long bytes, boolean success);
+
+    /**
+     * 记录分片上传各阶段的耗时
+     *
+     * @param provider  存储服务
+     * @param operation 操作
+     * @param phase     阶段，如initiate、complete、abort
+     * @param nanos     耗时（纳秒）
+     */
+    void recordPhase(String provider, String operation, String phase, long nanos);
+
+    /**
+     * 记录一次重试
+     *
+     * @param provider    存储服务
+     * @param operation   操作
+     * @param wastedBytes 失败的请求已发送或接收、需要重新传输的字节数
+     */
+    void recordRetry(String provider, String operation, long wastedBytes);
+
+    /**
+     * 记录一次去重上传的结果
+     *
+     * @param provider  存储服务
+     * @param operation 操作
+     * @param result    skipped：内容已存在，未上传；removed：上传后发现重复，已删除新副本；stored：新内容
+     * @param bytes     文件大小
+     */
+    void recordDedup(String provider, String operation, String result, long bytes);
+
+    /**
+     * 记录多存储服务读取时的对冲请求
+     *
+     * @param backend   收到对冲请求的存储服务
+     * @param operation 操作
+     * @param result    sent：发出对冲请求；won：对冲请求先于原请求返回
+     */
+    void recordHedge(String backend, String operation, String result);
+
+    /**
+     * 注册缓存的命中和未命中次数
+     *
+     * @param provider 存储服务
+     * @param backend  存储服务名称，区分同类型的多个存储服务
+     * @param cache    缓存名称
+     * @param hits     命中次数
+     * @param misses   未命中次数
+     */
+    void bindCache(String provider, String backend, String cache, LongSupplier hits, LongSupplier misses);
+
+    /**
+     * 注册按字节数限制的缓存当前占用和累计淘汰的字节数
+     *
+     * @param provider     存储服务
+     * @param backend      存储服务名称，区分同类型的多个存储服务
+     * @param cache        缓存名称
+     * @param bytes        当前占用的字节数
+     * @param evictedBytes 累计淘汰的字节数
+     */
+    void bindCacheBytes(String provider, String backend, String cache, LongSupplier bytes, LongSupplier evictedBytes);
+}
@@ -0,0 +1,42 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * @ClassName BackendStats
+ * @Author ntx
+ * @Description 多存储服务中单个存储服务的读取情况
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackendStats {
+    /**
+     * 存储服务名称，类型#序号
+     */
+    private String name;
+    /**
+     * 各读取操作（stat/download/downloadFile）的平滑平均延迟（毫秒），没有记录时为0
+     */
+    private Map<String, Double> latencyMillis;
+    /**
+     * 发往该存储服务的读取请求数，包含对冲请求
+     */
+    private long requests;
+    /**
+     * 失败的请求数
+     */
+    private long failures;
+    /**
+     * 发往该存储服务的对冲请求数
+     */
+    private long hedges;
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    private long hedgeWins;
+}
@@ -0,0 +1,39 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * @ClassName BatchDeleteResult
+ * @Author ntx
+ * @Description 批量删除结果，只记录删除失败的对象
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDeleteResult {
+    /**
+     * 请求删除的对象数（去重后）
+     */
+    private int total;
+    /**
+     * 删除成功的对象数，对象不存在也视为删除成功
+     */
+    private int deleted;
+    /**
+     * 删除失败的对象名称及失败原因
+     */
+    private Map<String, String> errors;
+
+    /**
+     * 是否全部删除成功
+     *
+     * @return true/false
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName BatchUploadResult
+ * @Author ntx
+ * @Description 批量上传中单个文件的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadResult {
+    /**
+     * 在批量上传列表中的下标
+     */
+    private int index;
+    /**
+     * 原始文件名
+     */
+    private String originalFilename;
+    /**
+     * 上传成功后的访问路径
+     */
+    private String url;
+    /**
+     * 上传失败的原因，成功时为null
+     */
+    private String error;
+
+    /**
+     * 是否上传成功
+     *
+     * @return true/false
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
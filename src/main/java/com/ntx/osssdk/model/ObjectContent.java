@@ -0,0 +1,41 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @ClassName ObjectContent
+ * @Author ntx
+ * @Description 读取对象得到的内容和校验信息，使用后需关闭
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectContent implements Closeable {
+    /**
+     * 对象内容
+     */
+    private InputStream content;
+    /**
+     * 对象大小（字节），未知时为-1
+     */
+    private long size;
+    /**
+     * ETag
+     */
+    private String etag;
+    /**
+     * 最后修改时间（毫秒时间戳），未知时为0
+     */
+    private long lastModified;
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName ObjectStat
+ * @Author ntx
+ * @Description 对象元数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectStat {
+    /**
+     * 对象名称
+     */
+    private String objectName;
+    /**
+     * 文件大小
+     */
+    private long size;
+    /**
+     * 对象的ETag（七牛云为文件hash）
+     */
+    private String etag;
+    /**
+     * 文件类型
+     */
+    private String contentType;
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+}
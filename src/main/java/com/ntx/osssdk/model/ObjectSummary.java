@@ -0,0 +1,46 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName ObjectSummary
+ * @Author ntx
+ * @Description 列举结果中的对象摘要，指定分隔符时公共前缀以目录形式返回
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectSummary {
+    /**
+     * 对象名称，目录时为公共前缀
+     */
+    private String objectName;
+    /**
+     * 文件大小，目录为0
+     */
+    private long size;
+    /**
+     * 对象的ETag（七牛云为文件hash），目录为null
+     */
+    private String etag;
+    /**
+     * 最后修改时间（毫秒时间戳），目录为0
+     */
+    private long lastModified;
+    /**
+     * 是否为目录（公共前缀）
+     */
+    private boolean directory;
+
+    /**
+     * 创建目录摘要
+     *
+     * @param prefix 公共前缀
+     * @return 目录摘要
+     */
+    public static ObjectSummary directory(String prefix) {
+        return new ObjectSummary(prefix, 0, null, 0, true);
+    }
+}
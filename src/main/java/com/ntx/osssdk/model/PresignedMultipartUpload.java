@@ -0,0 +1,32 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName PresignedMultipartUpload
+ * @Author ntx
+ * @Description 客户端直传的分片上传，客户端按分片大小切分文件，逐个获取分片地址上传
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedMultipartUpload {
+    /**
+     * 对象名称
+     */
+    private String objectName;
+    /**
+     * 分片上传ID
+     */
+    private String uploadId;
+    /**
+     * 分片大小，最后一个分片可以小于该大小
+     */
+    private long partSize;
+    /**
+     * 分片数，分片号从1开始
+     */
+    private int partCount;
+}
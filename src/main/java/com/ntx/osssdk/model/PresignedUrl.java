@@ -0,0 +1,42 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * @ClassName PresignedUrl
+ * @Author ntx
+ * @Description 预签名地址，客户端在有效期内直接向存储服务上传或下载，数据不经过应用服务器
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUrl {
+    /**
+     * 对象名称
+     */
+    private String objectName;
+    /**
+     * 请求方法：GET、PUT，七牛云表单上传为POST
+     */
+    private String method;
+    /**
+     * 请求地址
+     */
+    private String url;
+    /**
+     * 请求需携带的请求头，如参与签名的Content-Type、七牛云分片上传的Authorization
+     */
+    private Map<String, String> headers;
+    /**
+     * 表单上传的表单字段（七牛云），文件内容放在file字段中，其余存储服务为空
+     */
+    private Map<String, String> formFields;
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private long expiresAt;
+}
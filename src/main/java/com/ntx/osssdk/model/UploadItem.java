@@ -0,0 +1,34 @@
+package com.ntx.osssdk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.InputStream;
+
+/**
+ * @ClassName UploadItem
+ * @Author ntx
+ * @Description 批量上传的数据项，输入流在上传结束后关闭
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadItem {
+    /**
+     * 原始文件名，用于生成对象名称和后缀
+     */
+    private String originalFilename;
+    /**
+     * 文件类型
+     */
+    private String contentType;
+    /**
+     * 文件大小
+     */
+    private long size;
+    /**
+     * 文件输入流
+     */
+    private InputStream inputStream;
+}
@@ -0,0 +1,52 @@
+package com.ntx.osssdk.multipart;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @ClassName CheckpointStore
+ * @Author ntx
+ * @Description 分片上传断点记录存储，可自定义实现替换默认的本地文件存储
+ */
+public interface CheckpointStore {
+
+    /**
+     * 读取断点记录
+     *
+     * @param key 断点记录标识
+     * @return 断点记录，不存在时返回null
+     */
+    UploadCheckpoint load(String key);
+
+    /**
+     * 保存断点记录，覆盖已有的记录
+     *
+     * @param checkpoint 断点记录
+     */
+    void save(UploadCheckpoint checkpoint);
+
+    /**
+     * 追加一个已完成的分片，可能被多个分片上传线程同时调用
+     *
+     * @param key  断点记录标识
+     * @param part 已完成的分片
+     */
+    void appendPart(String key, UploadedPart part);
+
+    /**
+     * 列举断点记录标识，用于清理过期的记录，不支持列举的实现返回空列表
+     *
+     * @param prefix 断点记录标识前缀
+     * @return 断点记录标识
+     */
+    default List<String> keys(String prefix) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 删除断点记录
+     *
+     * @param key 断点记录标识
+     */
+    void remove(String key);
+}
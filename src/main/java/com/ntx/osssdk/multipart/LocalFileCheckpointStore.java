@@ -0,0 +1,131 @@
+package com.ntx.osssdk.multipart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @ClassName LocalFileCheckpointStore
+ * @Author ntx
+ * @Description 本地文件断点记录存储：首行为断点记录，之后每行追加一个已完成的分片
+ */
+@Slf4j
+public class LocalFileCheckpointStore implements CheckpointStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path directory;
+
+    public LocalFileCheckpointStore(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public UploadCheckpoint load(String key) {
+        Path file = file(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return null;
+            }
+            UploadCheckpoint checkpoint = MAPPER.readValue(lines.get(0), UploadCheckpoint.class);
+            for (String line : lines.subList(1, lines.size())) {
+                // 进程中断时最后一行可能只写了一半，忽略即可，该分片会重新上传
+                try {
+                    checkpoint.getParts().add(MAPPER.readValue(line, UploadedPart.class));
+                } catch (IOException e) {
+                    log.warn("==>忽略不完整的断点分片记录：{}", line);
+                }
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            log.warn("==>读取断点记录失败，重新上传：{}", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(UploadCheckpoint checkpoint) {
+        Path file = file(checkpoint.getKey());
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, checkpoint.getKey(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                UploadCheckpoint header = new UploadCheckpoint();
+                header.setKey(checkpoint.getKey());
+                header.setUploadId(checkpoint.getUploadId());
+                header.setObjectName(checkpoint.getObjectName());
+                header.setPartSize(checkpoint.getPartSize());
+                header.setFileSize(checkpoint.getFileSize());
+                header.setCreatedAt(checkpoint.getCreatedAt());
+                writer.write(MAPPER.writeValueAsString(header));
+                writer.newLine();
+                for (UploadedPart part : checkpoint.getParts()) {
+                    writer.write(MAPPER.writeValueAsString(part));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存断点记录失败：" + file, e);
+        }
+    }
+
+    @Override
+    public void appendPart(String key, UploadedPart part) {
+        Path file = file(key);
+        try {
+            byte[] line = (MAPPER.writeValueAsString(part) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            // 同一记录的追加串行执行，避免多行交错
+            synchronized (this) {
+                Files.write(file, line, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("追加断点分片失败：" + file, e);
+        }
+    }
+
+    @Override
+    public List<String> keys(String prefix) {
+        List<String> keys = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return keys;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(".checkpoint"))
+                    .forEach(name -> keys.add(name.substring(0, name.length() - ".checkpoint".length())));
+        } catch (IOException e) {
+            log.warn("==>列举断点记录失败：{}", directory, e);
+        }
+        return keys;
+    }
+
+    @Override
+    public void remove(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            log.warn("==>删除断点记录失败：{}", key, e);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + ".checkpoint");
+    }
+}
@@ -0,0 +1,90 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.metrics.OssMetrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName MeteredMultipartOperations
+ * @Author ntx
+ * @Description 记录分片上传各阶段和每个分片耗时的分片接口包装，分片耗时同时用于调整分片大小
+ */
+public class MeteredMultipartOperations implements MultipartOperations {
+
+    private static final String OPERATION = "uploadFile";
+
+    private final MultipartOperations delegate;
+
+    private final OssMetrics metrics;
+
+    private final PartSizePlanner planner;
+
+    private final String provider;
+
+    public MeteredMultipartOperations(MultipartOperations delegate, OssMetrics metrics, PartSizePlanner planner,
+                                      String provider) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.planner = planner;
+        this.provider = provider;
+    }
+
+    @Override
+    public String initiate(String objectName) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return delegate.initiate(objectName);
+        } finally {
+            metrics.recordPhase(provider, OPERATION, "initiate", System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Map<Integer, String> listParts(String objectName, String uploadId) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return delegate.listParts(objectName, uploadId);
+        } finally {
+            metrics.recordPhase(provider, OPERATION, "listParts", System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws Exception {
+        int length = data.getLength();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            String etag = delegate.uploadPart(objectName, uploadId, partNumber, data);
+            success = true;
+            return etag;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            metrics.recordPart(provider, OPERATION, nanos, length, success);
+            if (success) {
+                planner.record(provider, length, nanos);
+            }
+        }
+    }
+
+    @Override
+    public void complete(String objectName, String uploadId, List<UploadedPart> parts) throws Exception {
+        long start = System.nanoTime();
+        try {
+            delegate.complete(objectName, uploadId, parts);
+        } finally {
+            metrics.recordPhase(provider, OPERATION, "complete", System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void abort(String objectName, String uploadId) throws Exception {
+        long start = System.nanoTime();
+        try {
+            delegate.abort(objectName, uploadId);
+        } finally {
+            metrics.recordPhase(provider, OPERATION, "abort", System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ntx.osssdk.multipart;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName MultipartOperations
+ * @Author ntx
+ * @Description 存储服务的分片上传接口，由各存储服务实现
+ */
+public interface MultipartOperations {
+
+    /**
+     * 初始化分片上传
+     *
+     * @param objectName 对象名称
+     * @return uploadId
+     * @throws Exception 异常
+     */
+    String initiate(String objectName) throws Exception;
+
+    /**
+     * 列举服务端已上传的分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @return 分片号 -> ETag
+     * @throws Exception 上传不存在或已完成时抛出异常
+     */
+    Map<Integer, String> listParts(String objectName, String uploadId) throws Exception;
+
+    /**
+     * 上传分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片号
+     * @param data       分片数据
+     * @return 分片ETag
+     * @throws Exception 异常
+     */
+    String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws Exception;
+
+    /**
+     * 完成分片上传
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param parts      按分片号排序的已上传分片
+     * @throws Exception 异常
+     */
+    void complete(String objectName, String uploadId, List<UploadedPart> parts) throws Exception;
+
+    /**
+     * 取消分片上传
+     *
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @throws Exception 异常
+     */
+    void abort(String objectName, String uploadId) throws Exception;
+}
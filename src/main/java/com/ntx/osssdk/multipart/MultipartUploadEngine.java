@@ -0,0 +1,255 @@
+package com.ntx.osssdk.multipart;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName MultipartUploadEngine
+ * @Author ntx
+ * @Description 分片上传引擎：只顺序读取一次数据源，或按位置切分本地文件，分片并发上传
+ */
+@Component
+@Slf4j
+public class MultipartUploadEngine {
+
+    @Resource
+    private ExecutorService ossPartExecutor;
+
+    /**
+     * 读取输入流并发上传分片，读到流结束为止。
+     * 同一时间内存中最多有parallelism个分片缓冲区，读取下一个分片和上传之前的分片同时进行。
+     *
+     * @param inputStream 数据源，由调用方负责关闭
+     * @param partSize    分片大小
+     * @param parallelism 并发上传的分片数
+     * @param uploader    分片上传回调
+     * @return 按分片号排序的已上传分片
+     * @throws Exception 任意分片上传失败时抛出第一个异常
+     */
+    public List<UploadedPart> upload(InputStream inputStream, long partSize, int parallelism, PartUploader uploader) throws Exception {
+        return upload(inputStream, partSize, parallelism, Integer.MAX_VALUE, uploader, null, null);
+    }
+
+    /**
+     * 读取输入流并发上传分片，跳过已完成且内容一致的分片。
+     * 传入已完成分片或完成回调时会计算每个分片的MD5，用于断点续传时校验分片内容。
+     *
+     * @param inputStream    数据源，由调用方关闭
+     * @param partSize       分片大小
+     * @param parallelism    并发上传的分片数
+     * @param maxParts       存储服务允许的最大分片数，超过时不再读取并抛出异常
+     * @param uploader       分片上传回调
+     * @param completedParts 已完成的分片，可为null
+     * @param onPartUploaded 每个分片上传完成后的回调，可能在多个线程中同时调用，可为null
+     * @return 按分片号排序的分片
+     * @throws Exception 任意分片上传失败时抛出第一个异常
+     */
+    public List<UploadedPart> upload(InputStream inputStream, long partSize, int parallelism, int maxParts,
+                                     PartUploader uploader, Map<Integer, UploadedPart> completedParts,
+                                     Consumer<UploadedPart> onPartUploaded) throws Exception {
+        boolean digest = completedParts != null || onPartUploaded != null;
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("分片大小不合法：" + partSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("分片并发数必须大于0");
+        }
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(parallelism);
+        int allocated = 0;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ConcurrentLinkedQueue<UploadedPart> parts = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int partNumber = 0;
+        try {
+            while (failure.get() == null) {
+                byte[] buffer = buffers.poll();
+                if (buffer == null && allocated < parallelism) {
+                    buffer = new byte[(int) partSize];
+                    allocated++;
+                }
+                // 缓冲区都在上传中，等待某个分片上传完成
+                while (buffer == null && failure.get() == null) {
+                    buffer = buffers.poll(100, TimeUnit.MILLISECONDS);
+                }
+                if (buffer == null) {
+                    break;
+                }
+                int length = readFully(inputStream, buffer);
+                // 读到流末尾且不是第一个分片时结束，空流也需要上传一个空分片
+                if (length == 0 && partNumber > 0) {
+                    break;
+                }
+                if (partNumber >= maxParts) {
+                    // 服务端会拒绝超出上限的分片，此时失败可以尽早取消，不再读取和上传剩余的数据
+                    throw new RuntimeException("分片数超过存储服务上限" + maxParts + "，分片大小：" + partSize);
+                }
+                int currentPart = ++partNumber;
+                byte[] data = buffer;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        uploadPart(currentPart, PartData.of(data, length), digest, uploader, completedParts,
+                                onPartUploaded, parts, failure);
+                    } finally {
+                        buffers.offer(data);
+                    }
+                }, ossPartExecutor));
+                if (length < partSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+        return await(futures, failure, parts);
+    }
+
+    /**
+     * 按位置切分本地文件并发上传分片，跳过已完成且内容一致的分片。
+     * 分片由上传请求直接从文件读取，不复制到堆内缓冲区，同一时间最多有parallelism个分片在上传。
+     *
+     * @param file           本地文件
+     * @param fileSize       文件大小
+     * @param partSize       分片大小
+     * @param parallelism    并发上传的分片数
+     * @param uploader       分片上传回调
+     * @param completedParts 已完成的分片，可为null
+     * @param onPartUploaded 每个分片上传完成后的回调，可能在多个线程中同时调用，可为null
+     * @return 按分片号排序的分片
+     * @throws Exception 任意分片上传失败时抛出第一个异常
+     */
+    public List<UploadedPart> upload(Path file, long fileSize, long partSize, int parallelism, PartUploader uploader,
+                                     Map<Integer, UploadedPart> completedParts, Consumer<UploadedPart> onPartUploaded) throws Exception {
+        boolean digest = completedParts != null || onPartUploaded != null;
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("分片大小不合法：" + partSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("分片并发数必须大于0");
+        }
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ConcurrentLinkedQueue<UploadedPart> parts = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // 空文件也需要上传一个空分片
+        long partCount = Math.max(1, (fileSize + partSize - 1) / partSize);
+        try {
+            for (int partNumber = 1; partNumber <= partCount && failure.get() == null; partNumber++) {
+                // 分片都在上传中，等待某个分片上传完成
+                boolean acquired = false;
+                while (!acquired && failure.get() == null) {
+                    acquired = permits.tryAcquire(100, TimeUnit.MILLISECONDS);
+                }
+                if (!acquired) {
+                    break;
+                }
+                long position = (partNumber - 1) * partSize;
+                PartData data = PartData.of(file, position, (int) Math.min(partSize, fileSize - position));
+                int currentPart = partNumber;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        uploadPart(currentPart, data, digest, uploader, completedParts, onPartUploaded, parts, failure);
+                    } finally {
+                        permits.release();
+                    }
+                }, ossPartExecutor));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+        return await(futures, failure, parts);
+    }
+
+    /**
+     * 上传一个分片，断点记录中内容一致的分片直接跳过，失败时记录第一个异常
+     */
+    private static void uploadPart(int partNumber, PartData data, boolean digest, PartUploader uploader,
+                                   Map<Integer, UploadedPart> completedParts, Consumer<UploadedPart> onPartUploaded,
+                                   ConcurrentLinkedQueue<UploadedPart> parts, AtomicReference<Throwable> failure) {
+        try {
+            if (failure.get() == null) {
+                String md5 = digest ? data.md5() : null;
+                UploadedPart completed = completedParts == null ? null : completedParts.get(partNumber);
+                if (completed != null && completed.getSize() == data.getLength() && md5.equals(completed.getMd5())) {
+                    parts.add(completed);
+                } else {
+                    String etag = uploader.upload(partNumber, data);
+                    UploadedPart part = new UploadedPart(partNumber, etag, data.getLength(), md5);
+                    parts.add(part);
+                    if (onPartUploaded != null) {
+                        onPartUploaded.accept(part);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * 等待已提交的分片结束，返回按分片号排序的分片或抛出第一个异常
+     */
+    private static List<UploadedPart> await(List<CompletableFuture<Void>> futures, AtomicReference<Throwable> failure,
+                                            ConcurrentLinkedQueue<UploadedPart> parts) throws Exception {
+        // 等待已提交的分片结束后再返回，避免调用方取消上传时仍有分片在上传
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        Throwable e = failure.get();
+        if (e != null) {
+            if (e instanceof CompletionException && e.getCause() != null) {
+                e = e.getCause();
+            }
+            if (e instanceof Exception) {
+                throw (Exception) e;
+            }
+            throw new RuntimeException("分片上传失败", e);
+        }
+        List<UploadedPart> result = new ArrayList<>(parts);
+        result.sort(Comparator.comparingInt(UploadedPart::getPartNumber));
+        log.debug("==>分片上传完成，分片数：{}", result.size());
+        return result;
+    }
+
+    /**
+     * 读满缓冲区或读到流末尾
+     *
+     * @param inputStream 输入流
+     * @param buffer      缓冲区
+     * @return 读取的字节数
+     * @throws IOException IO异常
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
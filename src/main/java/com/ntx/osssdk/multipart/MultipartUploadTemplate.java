@@ -0,0 +1,331 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.properties.Properties;
+import com.ntx.osssdk.throttle.BandwidthLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.Resource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName MultipartUploadTemplate
+ * @Author ntx
+ * @Description 分片上传流程：初始化、断点续传、并发上传分片、完成或取消
+ */
+@Component
+@Slf4j
+public class MultipartUploadTemplate {
+
+    @Resource
+    private Properties properties;
+
+    @Resource
+    private MultipartUploadEngine multipartUploadEngine;
+
+    @Resource
+    private CheckpointStore checkpointStore;
+
+    @Resource
+    private BandwidthLimiter bandwidthLimiter;
+
+    /**
+     * 正在上传的断点记录，同一数据源同时上传时只有一个使用断点记录
+     */
+    private final Set<String> activeKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 存储服务/桶的断点记录前缀 -> 下次清理过期记录的时间
+     */
+    private final Map<String, Long> nextSweeps = new ConcurrentHashMap<>();
+
+    /**
+     * 根据数据源信息计算断点记录标识，以存储服务和桶名开头，便于按存储服务清理过期的记录
+     *
+     * @param provider 存储服务类型
+     * @param bucket   桶名
+     * @param source   文件名、大小等能标识数据源的信息
+     * @return 断点记录标识
+     */
+    public static String checkpointKey(String provider, String bucket, Object... source) {
+        StringBuilder builder = new StringBuilder();
+        for (Object part : source) {
+            builder.append(part).append('|');
+        }
+        return keyPrefix(provider, bucket)
+                + DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 分片上传。开启断点续传时，同一数据源再次上传会跳过服务端已有且内容一致的分片，
+     * 上传失败时保留已上传的分片用于续传，超过最长保留时间仍未续传时取消；未开启时上传失败会取消分片上传。
+     *
+     * @param operations    存储服务分片接口
+     * @param inputStream   数据源，由调用方关闭
+     * @param fileSize      文件大小
+     * @param partSize      分片大小
+     * @param parallelism   并发上传的分片数
+     * @param maxParts      存储服务允许的最大分片数
+     * @param objectName    新上传时使用的对象名称
+     * @param checkpointKey 断点记录标识，为null时不记录断点
+     * @return 实际上传的对象名称，续传时为上一次上传使用的名称
+     * @throws Exception 异常
+     */
+    public String upload(MultipartOperations operations, InputStream inputStream, long fileSize, long partSize,
+                         int parallelism, int maxParts, String objectName, String checkpointKey) throws Exception {
+        return upload(operations, fileSize, partSize, objectName, checkpointKey,
+                (size, uploader, completedParts, onPartUploaded) -> multipartUploadEngine.upload(inputStream, size,
+                        parallelism, maxParts, uploader, completedParts, onPartUploaded));
+    }
+
+    /**
+     * 分片上传本地文件，分片按位置直接从文件读取，不复制到堆内缓冲区。断点续传与上传输入流时一致。
+     * 分片不经过限速的输入流，上传每个分片前按上传带宽限制等待。
+     *
+     * @param operations    存储服务分片接口
+     * @param file          本地文件
+     * @param fileSize      文件大小
+     * @param partSize      分片大小
+     * @param parallelism   并发上传的分片数
+     * @param objectName    新上传时使用的对象名称
+     * @param checkpointKey 断点记录标识，为null时不记录断点
+     * @return 实际上传的对象名称，续传时为上一次上传使用的名称
+     * @throws Exception 异常
+     */
+    public String upload(MultipartOperations operations, Path file, long fileSize, long partSize,
+                         int parallelism, String objectName, String checkpointKey) throws Exception {
+        return upload(operations, fileSize, partSize, objectName, checkpointKey,
+                (size, uploader, completedParts, onPartUploaded) -> multipartUploadEngine.upload(file, fileSize, size,
+                        parallelism, (partNumber, data) -> {
+                            bandwidthLimiter.acquireUpload(data.getLength());
+                            return uploader.upload(partNumber, data);
+                        }, completedParts, onPartUploaded));
+    }
+
+    private String upload(MultipartOperations operations, long fileSize, long partSize, String objectName,
+                          String checkpointKey, PartsUploader partsUploader) throws Exception {
+        UploadCheckpoint checkpoint = acquire(operations, checkpointKey);
+        try {
+            String uploadId = null;
+            Map<Integer, UploadedPart> completedParts = Collections.emptyMap();
+            if (checkpoint != null && checkpoint.getFileSize() == fileSize && checkpoint.getPartSize() > 0) {
+                // 分片大小会随吞吐量调整，续传时沿用上一次的分片大小
+                partSize = checkpoint.getPartSize();
+            }
+            if (checkpoint != null && checkpoint.isResumable(partSize, fileSize)) {
+                completedParts = verify(operations, checkpoint);
+                if (completedParts != null) {
+                    uploadId = checkpoint.getUploadId();
+                    objectName = checkpoint.getObjectName();
+                    log.info("==>断点续传：{}，已完成分片数：{}", objectName, completedParts.size());
+                }
+            }
+            if (uploadId == null) {
+                uploadId = operations.initiate(objectName);
+                completedParts = Collections.emptyMap();
+                if (checkpoint != null) {
+                    checkpoint.setUploadId(uploadId);
+                    checkpoint.setObjectName(objectName);
+                    checkpoint.setPartSize(partSize);
+                    checkpoint.setFileSize(fileSize);
+                    checkpoint.setCreatedAt(System.currentTimeMillis());
+                    checkpoint.getParts().clear();
+                    checkpoint = save(checkpoint);
+                }
+            }
+            String name = objectName;
+            String id = uploadId;
+            UploadCheckpoint current = checkpoint;
+            try {
+                List<UploadedPart> parts = partsUploader.upload(partSize,
+                        (partNumber, data) -> operations.uploadPart(name, id, partNumber, data),
+                        current == null ? null : completedParts,
+                        current == null ? null : part -> appendPart(current, part));
+                operations.complete(name, id, parts);
+            } catch (Exception e) {
+                if (current == null) {
+                    log.error("==>分片上传失败，取消分片上传：{}", name, e);
+                    abort(operations, name, id);
+                } else {
+                    log.error("==>分片上传失败，保留已上传分片用于断点续传：{}", name, e);
+                }
+                throw e;
+            }
+            if (current != null) {
+                checkpointStore.remove(current.getKey());
+            }
+            return name;
+        } finally {
+            if (checkpoint != null) {
+                activeKeys.remove(checkpointKey);
+            }
+        }
+    }
+
+    /**
+     * 获取断点记录，未开启断点续传或同一数据源正在上传时返回null。超过最长保留时间的记录取消对应的分片上传后重新开始
+     */
+    private UploadCheckpoint acquire(MultipartOperations operations, String checkpointKey) {
+        if (checkpointKey == null || !properties.getMultipart().isCheckpointEnabled()) {
+            return null;
+        }
+        sweep(operations, checkpointKey);
+        if (!activeKeys.add(checkpointKey)) {
+            return null;
+        }
+        UploadCheckpoint checkpoint = null;
+        try {
+            checkpoint = checkpointStore.load(checkpointKey);
+        } catch (Exception e) {
+            log.warn("==>读取断点记录失败：{}", checkpointKey, e);
+        }
+        if (checkpoint != null && isExpired(checkpoint)) {
+            discard(operations, checkpoint);
+            checkpoint = null;
+        }
+        if (checkpoint == null) {
+            checkpoint = new UploadCheckpoint();
+            checkpoint.setKey(checkpointKey);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 清理同一存储服务和桶中过期的断点记录，并取消对应的分片上传，每个最长保留时间内最多清理一次。
+     * 未再次上传的数据源也会被清理，已上传的分片不会一直占用存储空间
+     */
+    private void sweep(MultipartOperations operations, String checkpointKey) {
+        String prefix = checkpointKey.substring(0, checkpointKey.lastIndexOf('-') + 1);
+        long now = System.currentTimeMillis();
+        Long next = nextSweeps.get(prefix);
+        if (next != null && next > now) {
+            return;
+        }
+        // 同时到期时只有一个线程清理
+        Long deadline = now + maxAgeMillis();
+        if (next == null ? nextSweeps.putIfAbsent(prefix, deadline) != null : !nextSweeps.replace(prefix, next, deadline)) {
+            return;
+        }
+        List<String> keys;
+        try {
+            keys = checkpointStore.keys(prefix);
+        } catch (Exception e) {
+            log.warn("==>列举断点记录失败：{}", prefix, e);
+            return;
+        }
+        for (String key : keys) {
+            // 前缀相同的其他桶的记录（如桶a与桶a-b）长度不同
+            if (key.length() != checkpointKey.length() || key.equals(checkpointKey) || !activeKeys.add(key)) {
+                continue;
+            }
+            try {
+                UploadCheckpoint checkpoint = checkpointStore.load(key);
+                if (checkpoint != null && isExpired(checkpoint)) {
+                    discard(operations, checkpoint);
+                }
+            } catch (Exception e) {
+                log.warn("==>清理断点记录失败：{}", key, e);
+            } finally {
+                activeKeys.remove(key);
+            }
+        }
+    }
+
+    private boolean isExpired(UploadCheckpoint checkpoint) {
+        return checkpoint.getUploadId() != null
+                && checkpoint.getCreatedAt() + maxAgeMillis() < System.currentTimeMillis();
+    }
+
+    private long maxAgeMillis() {
+        return properties.getMultipart().getCheckpointMaxAgeSeconds() * 1000;
+    }
+
+    /**
+     * 取消过期断点记录对应的分片上传并删除记录
+     */
+    private void discard(MultipartOperations operations, UploadCheckpoint checkpoint) {
+        log.info("==>断点记录已过期，取消分片上传：{}，uploadId：{}", checkpoint.getObjectName(), checkpoint.getUploadId());
+        abort(operations, checkpoint.getObjectName(), checkpoint.getUploadId());
+        checkpointStore.remove(checkpoint.getKey());
+    }
+
+    /**
+     * 与服务端已上传的分片核对，只保留ETag一致的分片
+     *
+     * @return 可跳过的分片，上传已失效时返回null
+     */
+    private Map<Integer, UploadedPart> verify(MultipartOperations operations, UploadCheckpoint checkpoint) {
+        Map<Integer, String> uploaded;
+        try {
+            uploaded = operations.listParts(checkpoint.getObjectName(), checkpoint.getUploadId());
+        } catch (Exception e) {
+            log.info("==>断点记录中的分片上传已失效，重新上传：{}", checkpoint.getObjectName());
+            return null;
+        }
+        Map<Integer, UploadedPart> completedParts = new HashMap<>();
+        for (UploadedPart part : checkpoint.getParts()) {
+            String etag = uploaded.get(part.getPartNumber());
+            if (etag != null && trimQuotes(etag).equals(trimQuotes(part.getEtag()))) {
+                completedParts.put(part.getPartNumber(), part);
+            }
+        }
+        return completedParts;
+    }
+
+    /**
+     * 保存断点记录，保存失败时本次上传不再记录断点
+     */
+    private UploadCheckpoint save(UploadCheckpoint checkpoint) {
+        try {
+            checkpointStore.save(checkpoint);
+            return checkpoint;
+        } catch (Exception e) {
+            log.warn("==>保存断点记录失败，本次上传不记录断点：{}", checkpoint.getKey(), e);
+            activeKeys.remove(checkpoint.getKey());
+            return null;
+        }
+    }
+
+    private void appendPart(UploadCheckpoint checkpoint, UploadedPart part) {
+        try {
+            checkpointStore.appendPart(checkpoint.getKey(), part);
+        } catch (Exception e) {
+            log.warn("==>记录断点分片失败：{}，分片号：{}", checkpoint.getKey(), part.getPartNumber(), e);
+        }
+    }
+
+    private void abort(MultipartOperations operations, String objectName, String uploadId) {
+        try {
+            operations.abort(objectName, uploadId);
+        } catch (Exception e) {
+            log.error("==>取消分片上传失败，uploadId：{}", uploadId, e);
+        }
+    }
+
+    private static String keyPrefix(String provider, String bucket) {
+        return provider + '-' + bucket + '-';
+    }
+
+    private static String trimQuotes(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
+    /**
+     * 按确定的分片大小上传所有分片
+     */
+    @FunctionalInterface
+    private interface PartsUploader {
+        List<UploadedPart> upload(long partSize, PartUploader uploader, Map<Integer, UploadedPart> completedParts,
+                                  Consumer<UploadedPart> onPartUploaded) throws Exception;
+    }
+}
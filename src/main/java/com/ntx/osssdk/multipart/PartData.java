@@ -0,0 +1,121 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.utils.FileSliceInputStream;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @ClassName PartData
+ * @Author ntx
+ * @Description 分片数据，来自堆内缓冲区或本地文件中的一段。文件分片在上传时按位置读取，不复制到堆内缓冲区
+ */
+public final class PartData {
+
+    private final byte[] buffer;
+
+    private final Path file;
+
+    private final long position;
+
+    private final int length;
+
+    private PartData(byte[] buffer, Path file, long position, int length) {
+        this.buffer = buffer;
+        this.file = file;
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * 堆内缓冲区中的分片，缓冲区只在本次上传期间有效
+     *
+     * @param buffer 缓冲区
+     * @param length 分片长度
+     * @return 分片数据
+     */
+    public static PartData of(byte[] buffer, int length) {
+        return new PartData(buffer, null, 0, length);
+    }
+
+    /**
+     * 本地文件中的分片
+     *
+     * @param file     文件
+     * @param position 分片在文件中的起始位置
+     * @param length   分片长度
+     * @return 分片数据
+     */
+    public static PartData of(Path file, long position, int length) {
+        return new PartData(null, file, position, length);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * 是否为堆内缓冲区中的分片
+     */
+    public boolean isBuffered() {
+        return buffer != null;
+    }
+
+    /**
+     * 获取堆内缓冲区，只有isBuffered()为true时可用
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 打开分片数据的输入流，每次调用都从分片开头读取，重试时可重新打开
+     *
+     * @return 输入流，由调用方关闭
+     * @throws IOException IO异常
+     */
+    public InputStream openStream() throws IOException {
+        if (buffer != null) {
+            return new ByteArrayInputStream(buffer, 0, length);
+        }
+        return new FileSliceInputStream(FileChannel.open(file, StandardOpenOption.READ), position, length, true);
+    }
+
+    /**
+     * 打开文件并定位到分片开头，只有文件分片可用
+     *
+     * @return RandomAccessFile，由调用方关闭
+     * @throws IOException IO异常
+     */
+    public RandomAccessFile openFile() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("缓冲区分片没有对应的文件");
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "r");
+        try {
+            randomAccessFile.seek(position);
+            return randomAccessFile;
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 计算分片内容的MD5
+     *
+     * @return 十六进制MD5
+     * @throws IOException IO异常
+     */
+    public String md5() throws IOException {
+        try (InputStream inputStream = openStream()) {
+            return DigestUtils.md5DigestAsHex(inputStream);
+        }
+    }
+}
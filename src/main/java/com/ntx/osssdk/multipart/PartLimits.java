@@ -0,0 +1,44 @@
+package com.ntx.osssdk.multipart;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @ClassName PartLimits
+ * @Author ntx
+ * @Description 存储服务的分片上传限制
+ */
+@Getter
+@AllArgsConstructor
+public class PartLimits {
+
+    /**
+     * minio（S3）：除最后一个分片外不小于5MB，不超过5GB，最多10000个分片
+     */
+    public static final PartLimits MINIO = new PartLimits(5 * 1024 * 1024L, 5 * 1024 * 1024 * 1024L, 10000);
+
+    /**
+     * 阿里云：除最后一个分片外不小于100KB，不超过5GB，最多10000个分片
+     */
+    public static final PartLimits ALIYUN = new PartLimits(100 * 1024L, 5 * 1024 * 1024 * 1024L, 10000);
+
+    /**
+     * 七牛云分片上传v2：分片1MB~1GB，最多10000个分片
+     */
+    public static final PartLimits QINIU = new PartLimits(1024 * 1024L, 1024 * 1024 * 1024L, 10000);
+
+    /**
+     * 最小分片大小（最后一个分片除外）
+     */
+    private final long minPartSize;
+
+    /**
+     * 最大分片大小
+     */
+    private final long maxPartSize;
+
+    /**
+     * 最大分片数
+     */
+    private final int maxParts;
+}
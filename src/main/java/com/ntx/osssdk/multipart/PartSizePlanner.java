@@ -0,0 +1,142 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName PartSizePlanner
+ * @Author ntx
+ * @Description 根据文件大小、存储服务限制和最近测得的分片吞吐量决定分片大小和并发数
+ */
+@Component
+public class PartSizePlanner {
+
+    private static final long MB = 1024 * 1024L;
+
+    /**
+     * 分片在内存中缓冲，单个分片不超过1GB
+     */
+    private static final long MAX_BUFFERED_PART_SIZE = 1024 * MB;
+
+    /**
+     * 小于该大小的分片耗时主要是请求延迟，不参与吞吐量统计
+     */
+    private static final long MIN_SAMPLE_BYTES = 256 * 1024L;
+
+    /**
+     * 吞吐量指数加权平均的权重
+     */
+    private static final double ALPHA = 0.3;
+
+    @Resource
+    private Properties properties;
+
+    /**
+     * 各存储服务单个分片的平均吞吐量（字节/秒），以double的位形式保存
+     */
+    private final Map<String, AtomicLong> throughput = new ConcurrentHashMap<>();
+
+    /**
+     * 不参考吞吐量的分片大小，用于客户端直传：本机测得的吞吐量不代表客户端的网络
+     *
+     * @param fileSize 文件大小
+     * @param limits   服务商分片限制
+     * @return 分片大小
+     */
+    public long partSize(long fileSize, PartLimits limits) {
+        if (fileSize > limits.getMaxPartSize() * limits.getMaxParts()) {
+            throw new RuntimeException("文件大小超过分片上传上限：" + fileSize);
+        }
+        long partSize = Math.max(properties.getMultipart().getPartSize(),
+                (fileSize + limits.getMaxParts() - 1) / limits.getMaxParts());
+        if (partSize > MB) {
+            partSize = (partSize + MB - 1) / MB * MB;
+        }
+        return Math.min(Math.max(partSize, limits.getMinPartSize()), limits.getMaxPartSize());
+    }
+
+    /**
+     * 计算分片上传计划：
+     * 分片大小不小于配置的分片大小，吞吐量高时放大到约target-part-seconds秒传完一个分片，
+     * 并保证分片数不超过存储服务上限；大小未知时使用缓冲区总大小允许的最大分片，尽量提高可上传的总大小；
+     * 并发数不超过配置值，且缓冲区总大小不超过max-buffer-size。
+     *
+     * @param provider 存储服务
+     * @param fileSize 文件大小，未知时为-1
+     * @param limits   存储服务的分片限制
+     * @return 分片上传计划
+     */
+    public UploadPlan plan(String provider, long fileSize, PartLimits limits) {
+        Properties.Multipart multipart = properties.getMultipart();
+        long maxPartSize = Math.min(limits.getMaxPartSize(), MAX_BUFFERED_PART_SIZE);
+        if (fileSize > maxPartSize * limits.getMaxParts()) {
+            throw new RuntimeException("文件大小超过分片上传上限：" + fileSize);
+        }
+        long partSize = multipart.getPartSize();
+        double bytesPerSecond = getThroughput(provider);
+        if (bytesPerSecond > 0) {
+            partSize = Math.max(partSize, (long) (bytesPerSecond * multipart.getTargetPartSeconds()));
+        }
+        if (fileSize > 0) {
+            // 分片数不超过上限
+            partSize = Math.max(partSize, (fileSize + limits.getMaxParts() - 1) / limits.getMaxParts());
+        } else if (fileSize < 0) {
+            // 大小未知时按配置的并发数平分缓冲区，向下按MB取整，使并发数不因取整减少
+            long bufferedPartSize = multipart.getMaxBufferSize() / Math.max(1, multipart.getParallelism());
+            partSize = Math.max(partSize, bufferedPartSize > MB ? bufferedPartSize / MB * MB : bufferedPartSize);
+        }
+        // 按MB取整，减少不同分片大小的种类
+        if (partSize > MB) {
+            partSize = (partSize + MB - 1) / MB * MB;
+        }
+        partSize = Math.min(Math.max(partSize, limits.getMinPartSize()), maxPartSize);
+        if (fileSize > 0 && fileSize < partSize) {
+            // 只有一个分片时不需要分配比文件大得多的缓冲区
+            partSize = Math.min(partSize, Math.max(limits.getMinPartSize(), (fileSize + MB - 1) / MB * MB));
+        }
+        int parallelism = Math.max(1, multipart.getParallelism());
+        if (fileSize > 0) {
+            parallelism = (int) Math.min(parallelism, (fileSize + partSize - 1) / partSize);
+        }
+        parallelism = (int) Math.max(1, Math.min(parallelism, multipart.getMaxBufferSize() / partSize));
+        return new UploadPlan(partSize, parallelism);
+    }
+
+    /**
+     * 记录一个分片的传输情况
+     *
+     * @param provider 存储服务
+     * @param bytes    分片大小
+     * @param nanos    耗时（纳秒）
+     */
+    public void record(String provider, long bytes, long nanos) {
+        if (bytes < MIN_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+        double sample = bytes * 1e9 / nanos;
+        AtomicLong average = throughput.computeIfAbsent(provider, key -> new AtomicLong(Double.doubleToLongBits(0)));
+        long current;
+        long next;
+        do {
+            current = average.get();
+            double value = Double.longBitsToDouble(current);
+            next = Double.doubleToLongBits(value == 0 ? sample : value + ALPHA * (sample - value));
+        } while (!average.compareAndSet(current, next));
+    }
+
+    /**
+     * 单个分片的平均吞吐量
+     *
+     * @param provider 存储服务
+     * @return 字节/秒，没有记录时为0
+     */
+    public double getThroughput(String provider) {
+        AtomicLong average = throughput.get(provider);
+        return average == null ? 0 : Double.longBitsToDouble(average.get());
+    }
+}
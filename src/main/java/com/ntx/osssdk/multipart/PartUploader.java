@@ -0,0 +1,20 @@
+package com.ntx.osssdk.multipart;
+
+/**
+ * @ClassName PartUploader
+ * @Author ntx
+ * @Description 分片上传回调，由各存储服务实现具体的分片上传请求
+ */
+@FunctionalInterface
+public interface PartUploader {
+
+    /**
+     * 上传一个分片
+     *
+     * @param partNumber 分片号，从1开始
+     * @param data       分片数据，缓冲区分片只在本次调用期间有效
+     * @return 分片的ETag
+     * @throws Exception 异常
+     */
+    String upload(int partNumber, PartData data) throws Exception;
+}
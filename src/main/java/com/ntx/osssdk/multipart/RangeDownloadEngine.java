@@ -0,0 +1,141 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.metrics.OssMetrics;
+import com.ntx.osssdk.retry.RetryPolicy;
+import com.ntx.osssdk.throttle.BandwidthLimiter;
+import com.ntx.osssdk.utils.CountingInputStream;
+import com.ntx.osssdk.utils.FileChannelUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @ClassName RangeDownloadEngine
+ * @Author ntx
+ * @Description 分片下载引擎：按字节范围并发下载，直接按位置写入预分配的文件
+ */
+@Component
+@Slf4j
+public class RangeDownloadEngine {
+
+    private static final String OPERATION = "downloadFile";
+
+    @Resource
+    private ExecutorService ossPartExecutor;
+
+    @Resource
+    private OssMetrics ossMetrics;
+
+    @Resource
+    private RetryPolicy retryPolicy;
+
+    @Resource
+    private BandwidthLimiter bandwidthLimiter;
+
+    /**
+     * 按字节范围并发下载对象到本地文件，失败的范围按重试策略单独重试
+     *
+     * @param provider    存储服务，用作指标标签
+     * @param target      本地文件
+     * @param size        对象大小
+     * @param rangeSize   每个范围的大小
+     * @param concurrency 单个文件并发下载的范围数
+     * @param maxRetries  每个范围失败后的最大重试次数
+     * @param bufferSize  写入文件的缓冲区大小
+     * @param reader      范围读取回调
+     * @throws Exception 任意范围重试后仍失败时抛出异常
+     */
+    public void download(String provider, Path target, long size, long rangeSize, int concurrency, int maxRetries, int bufferSize,
+                         RangeReader reader) throws Exception {
+        if (rangeSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("分片下载的范围大小和并发数必须大于0");
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            // 预分配文件大小，各范围直接写入对应位置
+            file.setLength(size);
+            FileChannel channel = file.getChannel();
+            for (long start = 0; start < size && failure.get() == null; start += rangeSize) {
+                long end = Math.min(start + rangeSize, size) - 1;
+                while (!permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null) {
+                        break;
+                    }
+                }
+                if (failure.get() != null) {
+                    break;
+                }
+                long rangeStart = start;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        downloadRange(provider, channel, rangeStart, end, maxRetries, bufferSize, reader);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                }, ossPartExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        Throwable e = failure.get();
+        if (e != null) {
+            Files.deleteIfExists(target);
+            if (e instanceof Exception) {
+                throw (Exception) e;
+            }
+            throw new RuntimeException("分片下载失败", e);
+        }
+        log.debug("==>分片下载完成，文件：{}，大小：{}", target, size);
+    }
+
+    /**
+     * 下载一个范围，失败时从已写入的位置继续重试
+     */
+    private void downloadRange(String provider, FileChannel channel, long start, long end, int maxRetries,
+                               int bufferSize, RangeReader reader) throws Exception {
+        long position = start;
+        retryPolicy.recordRequest();
+        for (int attempt = 0; ; attempt++) {
+            long begin = System.nanoTime();
+            long attemptStart = position;
+            CountingInputStream counter = null;
+            try (InputStream inputStream = reader.open(position, end)) {
+                counter = new CountingInputStream(inputStream);
+                position += FileChannelUtil.transfer(Channels.newChannel(bandwidthLimiter.throttleDownload(counter)), channel, position, bufferSize);
+                if (position != end + 1) {
+                    throw new IOException("范围数据不完整：" + start + "-" + end + "，已写入至" + position);
+                }
+                ossMetrics.recordPart(provider, OPERATION, System.nanoTime() - begin, position - attemptStart, true);
+                return;
+            } catch (Exception e) {
+                ossMetrics.recordPart(provider, OPERATION, System.nanoTime() - begin, 0, false);
+                // 传输中途失败时position没有前进，本次已接收的数据需要重新下载
+                long wasted = counter == null ? 0 : Math.max(0, attemptStart + counter.getCount() - position);
+                if (!retryPolicy.retry(provider, OPERATION, attempt, maxRetries, e, wasted)) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ntx.osssdk.multipart;
+
+import java.io.InputStream;
+
+/**
+ * @ClassName RangeReader
+ * @Author ntx
+ * @Description 按字节范围读取对象，由各存储服务实现具体的范围请求
+ */
+@FunctionalInterface
+public interface RangeReader {
+
+    /**
+     * 打开对象指定字节范围的输入流
+     *
+     * @param start 起始位置（包含）
+     * @param end   结束位置（包含）
+     * @return 输入流，由调用方关闭
+     * @throws Exception 异常
+     */
+    InputStream open(long start, long end) throws Exception;
+}
@@ -0,0 +1,57 @@
+package com.ntx.osssdk.multipart;
+
+import com.ntx.osssdk.retry.RetryPolicy;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName RetryingMultipartOperations
+ * @Author ntx
+ * @Description 单个分片失败时按重试策略只重试该分片的分片接口包装
+ */
+public class RetryingMultipartOperations implements MultipartOperations {
+
+    private static final String OPERATION = "uploadFile";
+
+    private final MultipartOperations delegate;
+
+    private final RetryPolicy retryPolicy;
+
+    private final String provider;
+
+    public RetryingMultipartOperations(MultipartOperations delegate, RetryPolicy retryPolicy, String provider) {
+        this.delegate = delegate;
+        this.retryPolicy = retryPolicy;
+        this.provider = provider;
+    }
+
+    @Override
+    public String initiate(String objectName) throws Exception {
+        return delegate.initiate(objectName);
+    }
+
+    @Override
+    public Map<Integer, String> listParts(String objectName, String uploadId) throws Exception {
+        return delegate.listParts(objectName, uploadId);
+    }
+
+    /**
+     * 分片数据在上传结束前保留在缓冲区中，重试时重新发送同一分片号，服务端以最后一次上传为准
+     */
+    @Override
+    public String uploadPart(String objectName, String uploadId, int partNumber, PartData data) throws Exception {
+        return retryPolicy.execute(provider, OPERATION, data.getLength(),
+                () -> delegate.uploadPart(objectName, uploadId, partNumber, data));
+    }
+
+    @Override
+    public void complete(String objectName, String uploadId, List<UploadedPart> parts) throws Exception {
+        delegate.complete(objectName, uploadId, parts);
+    }
+
+    @Override
+    public void abort(String objectName, String uploadId) throws Exception {
+        delegate.abort(objectName, uploadId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ntx.osssdk.multipart;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName UploadCheckpoint
+ * @Author ntx
+ * @Description 分片上传断点记录
+ */
+@Data
+public class UploadCheckpoint {
+    /**
+     * 断点记录的唯一标识，由数据源信息计算得到
+     */
+    private String key;
+    /**
+     * 分片上传ID
+     */
+    private String uploadId;
+    /**
+     * 对象名称，续传时沿用上一次的名称
+     */
+    private String objectName;
+    /**
+     * 分片大小
+     */
+    private long partSize;
+    /**
+     * 文件大小
+     */
+    private long fileSize;
+    /**
+     * 初始化分片上传的时间（毫秒）
+     */
+    private long createdAt;
+    /**
+     * 已上传完成的分片
+     */
+    private List<UploadedPart> parts = new ArrayList<>();
+
+    /**
+     * 是否可以续传：存在上传ID且分片规格与本次上传一致
+     *
+     * @param partSize 本次上传的分片大小
+     * @param fileSize 本次上传的文件大小
+     * @return true/false
+     */
+    public boolean isResumable(long partSize, long fileSize) {
+        return uploadId != null && objectName != null && this.partSize == partSize && this.fileSize == fileSize;
+    }
+
+    /**
+     * 按分片号索引已完成的分片
+     *
+     * @return 分片号 -> 分片
+     */
+    public Map<Integer, UploadedPart> completedParts() {
+        Map<Integer, UploadedPart> completed = new HashMap<>();
+        for (UploadedPart part : parts) {
+            completed.put(part.getPartNumber(), part);
+        }
+        return completed;
+    }
+}
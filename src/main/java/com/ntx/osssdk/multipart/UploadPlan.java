@@ -0,0 +1,22 @@
+package com.ntx.osssdk.multipart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * @ClassName UploadPlan
+ * @Author ntx
+ * @Description 分片上传计划
+ */
+@Data
+@AllArgsConstructor
+public class UploadPlan {
+    /**
+     * 分片大小
+     */
+    private long partSize;
+    /**
+     * 并发上传的分片数
+     */
+    private int parallelism;
+}
@@ -0,0 +1,32 @@
+package com.ntx.osssdk.multipart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName UploadedPart
+ * @Author ntx
+ * @Description 已上传的分片
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadedPart {
+    /**
+     * 分片号
+     */
+    private int partNumber;
+    /**
+     * 分片ETag
+     */
+    private String etag;
+    /**
+     * 分片大小
+     */
+    private long size;
+    /**
+     * 分片内容的MD5，开启断点续传时用于校验分片内容是否一致
+     */
+    private String md5;
+}
@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * @ClassName properties
  * @Author ntx
@@ -37,4 +42,485 @@ public class Properties {
      * 桶名
      */
     private String bucket;
+
+    /**
+     * 阿里云客户端连接配置
+     */
+    private Aliyun aliyun = new Aliyun();
+
+    /**
+     * 七牛云客户端配置
+     */
+    private Qiniu qiniu = new Qiniu();
+
+    /**
+     * OkHttp客户端配置
+     */
+    private Http http = new Http();
+
+    /**
+     * 下载配置
+     */
+    private Download download = new Download();
+
+    /**
+     * 分片上传配置
+     */
+    private Multipart multipart = new Multipart();
+
+    /**
+     * 异步传输配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 批量上传配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 元数据缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 对象名称配置
+     */
+    private Key key = new Key();
+
+    /**
+     * 内容去重配置
+     */
+    private Dedup dedup = new Dedup();
+
+    /**
+     * 多个存储服务，配置后读取时选择最近延迟最低的存储服务并在超时后对冲请求，写入使用第一个存储服务。
+     * 每个存储服务使用独立的完整配置（type、endpoint、bucket等），为空时只使用type指定的存储服务
+     */
+    private List<Properties> backends = new ArrayList<>();
+
+    /**
+     * 多存储服务读取的对冲配置
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 分片上传和分片下载的重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 带宽限制配置
+     */
+    private Throttle throttle = new Throttle();
+
+    /**
+     * 预签名地址配置
+     */
+    private Presign presign = new Presign();
+
+    /**
+     * 下载的本地磁盘缓存配置
+     */
+    private DownloadCache downloadCache = new DownloadCache();
+
+    /**
+     * 小对象的堆外内存缓存配置
+     */
+    private ObjectCache objectCache = new ObjectCache();
+
+    /**
+     * 阿里云OSS客户端连接池配置
+     */
+    @Data
+    public static class Aliyun {
+        /**
+         * 最大连接数（即连接池大小）
+         */
+        private int maxConnections = 1024;
+        /**
+         * 建立连接的超时时间（毫秒）
+         */
+        private int connectionTimeout = 50 * 1000;
+        /**
+         * Socket层传输数据的超时时间（毫秒）
+         */
+        private int socketTimeout = 50 * 1000;
+        /**
+         * 从连接池获取连接的超时时间（毫秒），-1表示不限制
+         */
+        private int connectionRequestTimeout = -1;
+        /**
+         * 空闲连接的回收时间（毫秒），超过该时间的空闲连接会被关闭
+         */
+        private long idleConnectionTime = 60 * 1000L;
+        /**
+         * 连接的最大存活时间（毫秒），-1表示不限制
+         */
+        private long connectionTTL = -1;
+        /**
+         * 请求失败后SDK的最大重试次数，分片上传和分段下载不使用SDK重试，由retry配置的重试策略重试
+         */
+        private int maxErrorRetry = 3;
+    }
+
+    /**
+     * 七牛云上传配置
+     */
+    @Data
+    public static class Qiniu {
+        /**
+         * 存储区域：auto（自动探测）或区域ID，如z0、z1、z2、na0、as0
+         */
+        private String region = "auto";
+        /**
+         * 上传凭证有效期（秒）
+         */
+        private long tokenExpireSeconds = 3600;
+        /**
+         * 上传凭证在过期前多久刷新（秒）
+         */
+        private long tokenRefreshAheadSeconds = 300;
+        /**
+         * 客户端直传和分片接口使用的上传地址（含协议），为空时按桶查询所在区域的上传域名，私有部署时需配置
+         */
+        private String upHost = "";
+    }
+
+    /**
+     * OkHttp客户端连接池和调度配置
+     */
+    @Data
+    public static class Http {
+        /**
+         * 连接池最大空闲连接数
+         */
+        private int maxIdleConnections = 32;
+        /**
+         * 空闲连接保活时间（秒）
+         */
+        private long keepAliveSeconds = 300;
+        /**
+         * 调度器最大并发请求数
+         */
+        private int maxRequests = 128;
+        /**
+         * 调度器单个主机最大并发请求数
+         */
+        private int maxRequestsPerHost = 32;
+        /**
+         * 建立连接的超时时间（毫秒）
+         */
+        private long connectTimeout = 10 * 1000L;
+        /**
+         * 读取数据的超时时间（毫秒）
+         */
+        private long readTimeout = 60 * 1000L;
+        /**
+         * 写入数据的超时时间（毫秒）
+         */
+        private long writeTimeout = 60 * 1000L;
+    }
+
+    /**
+     * 下载配置
+     */
+    @Data
+    public static class Download {
+        /**
+         * 写入本地文件时使用的缓冲区大小（字节）
+         */
+        private int bufferSize = 256 * 1024;
+        /**
+         * 分片下载时每个范围的大小（字节）
+         */
+        private long rangeSize = 8 * 1024 * 1024L;
+        /**
+         * 单个文件并发下载的范围数
+         */
+        private int concurrency = 4;
+        /**
+         * 每个范围下载失败后的最大重试次数
+         */
+        private int maxRetries = 3;
+    }
+
+    /**
+     * 分片上传配置
+     */
+    @Data
+    public static class Multipart {
+        /**
+         * 最小分片大小（字节），实际分片大小根据文件大小、存储服务限制和测得的吞吐量调整
+         */
+        private long partSize = 5 * 1024 * 1024L;
+        /**
+         * 单个文件最多并发上传的分片数
+         */
+        private int parallelism = 4;
+        /**
+         * 吞吐量较高时放大分片，使每个分片约在该时间内传完（秒）
+         */
+        private long targetPartSeconds = 2;
+        /**
+         * 单个文件分片缓冲区的总大小上限（字节），并发数 * 分片大小不超过该值
+         */
+        private long maxBufferSize = 256 * 1024 * 1024L;
+        /**
+         * 分片传输共享线程池的线程数
+         */
+        private int threads = 16;
+        /**
+         * 是否开启断点续传，开启后同一文件再次上传会跳过已上传的分片
+         */
+        private boolean checkpointEnabled = true;
+        /**
+         * 断点记录的最长保留时间（秒），超过后取消对应的分片上传并删除记录，不再续传
+         */
+        private long checkpointMaxAgeSeconds = 24 * 3600;
+        /**
+         * 断点记录的保存目录
+         */
+        private String checkpointDir = Paths.get(System.getProperty("java.io.tmpdir"), "oss-sdk-checkpoint").toString();
+    }
+
+    /**
+     * 异步传输线程池配置
+     */
+    @Data
+    public static class Async {
+        /**
+         * 传输线程数
+         */
+        private int threads = 32;
+        /**
+         * 等待队列容量，队列已满时异步任务以RejectedExecutionException结束
+         */
+        private int queueCapacity = 1000;
+    }
+
+    /**
+     * 批量上传配置
+     */
+    @Data
+    public static class Batch {
+        /**
+         * 同一批次同时上传的文件数，其余文件排队等待
+         */
+        private int concurrency = 16;
+    }
+
+    /**
+     * 桶存在性和对象元数据缓存配置
+     */
+    @Data
+    public static class Cache {
+        /**
+         * 桶存在的缓存时间（秒），不存在的结果不缓存
+         */
+        private long bucketTtlSeconds = 300;
+        /**
+         * 对象元数据的缓存时间（秒）
+         */
+        private long statTtlSeconds = 60;
+        /**
+         * 对象元数据最多缓存的条数
+         */
+        private int statMaxSize = 10000;
+    }
+
+    /**
+     * 对象名称配置
+     */
+    @Data
+    public static class Key {
+        /**
+         * 对象名称前的分片前缀位数（十六进制，0~4），0表示不加前缀。
+         * 开启后同一天上传的对象分散到不同的键范围，避免写入集中在同一分区
+         */
+        private int shardPrefixLength = 0;
+    }
+
+    /**
+     * 内容去重配置
+     */
+    @Data
+    public static class Dedup {
+        /**
+         * 是否开启内容去重，开启后按内容摘要命名对象，相同内容只保存一份
+         */
+        private boolean enabled = false;
+        /**
+         * 按内容摘要命名的对象前缀，该前缀下的对象被相同内容的上传共享，开启去重时delete不删除
+         */
+        private String prefix = "sha256/";
+        /**
+         * 不超过该大小的文件上传前先计算摘要，内容已存在时不再上传（字节）；
+         * 更大的文件和不可重复读取的输入流边上传边计算摘要，内容已存在时删除新上传的副本
+         */
+        private long digestAheadMaxSize = 64 * 1024 * 1024L;
+        /**
+         * 本地摘要索引的缓存时间（秒）
+         */
+        private long indexTtlSeconds = 86400;
+        /**
+         * 本地摘要索引最多缓存的条数
+         */
+        private int indexMaxSize = 100000;
+    }
+
+    /**
+     * 多存储服务读取的对冲配置
+     */
+    @Data
+    public static class Hedge {
+        /**
+         * 是否开启对冲，关闭时只在请求失败后切换到下一个存储服务
+         */
+        private boolean enabled = true;
+        /**
+         * 固定的对冲延迟（毫秒），0表示按存储服务最近的延迟及其波动自动计算
+         */
+        private long delayMillis = 0;
+        /**
+         * 自动计算的对冲延迟下限（毫秒）
+         */
+        private long minDelayMillis = 10;
+        /**
+         * 自动计算的对冲延迟上限（毫秒），没有延迟记录时使用该值
+         */
+        private long maxDelayMillis = 2000;
+        /**
+         * 对冲请求数占读取请求数的比例上限，避免存储服务整体变慢时请求量翻倍
+         */
+        private double maxHedgeRatio = 0.1;
+    }
+
+    /**
+     * 分片上传和分片下载的重试配置，单个分片或范围失败时只重试该分片
+     */
+    @Data
+    public static class Retry {
+        /**
+         * 单个分片失败后的最大重试次数，分片下载的范围使用download.max-retries。
+         * 七牛云的表单上传和本地文件的分片上传按整个请求重试，输入流的分片上传不重试
+         */
+        private int maxRetries = 3;
+        /**
+         * 第一次重试前的退避时间上限（毫秒）
+         */
+        private long initialBackoffMillis = 100;
+        /**
+         * 退避时间上限（毫秒）
+         */
+        private long maxBackoffMillis = 5000;
+        /**
+         * 每次重试退避时间上限的增长倍数，实际退避时间在0到上限之间随机
+         */
+        private double multiplier = 2;
+        /**
+         * 可重试的异常类型（含子类），不存在的类忽略
+         */
+        private List<String> retryableExceptions = new ArrayList<>(Arrays.asList(
+                "java.io.IOException",
+                "com.aliyun.oss.ClientException",
+                "io.minio.errors.ServerException"));
+        /**
+         * 可重试的服务端错误码（minio、阿里云）
+         */
+        private List<String> retryableErrorCodes = new ArrayList<>(Arrays.asList(
+                "InternalError", "ServiceUnavailable", "SlowDown", "RequestTimeout"));
+        /**
+         * 重试预算：重试次数占请求次数的比例上限，存储服务整体故障时避免重试放大请求量
+         */
+        private double budgetRatio = 0.2;
+        /**
+         * 重试预算中可累积的重试次数，允许短时间内的集中重试
+         */
+        private int budgetBurst = 20;
+    }
+
+    /**
+     * 带宽限制配置，本机所有传输共享，带宽在进行中的传输之间平均分配
+     */
+    @Data
+    public static class Throttle {
+        /**
+         * 上传带宽上限（字节/秒），0表示不限制
+         */
+        private long uploadBytesPerSecond = 0;
+        /**
+         * 下载带宽上限（字节/秒），0表示不限制
+         */
+        private long downloadBytesPerSecond = 0;
+        /**
+         * 不超过该大小的上传（字节）使用优先通道，不排在大文件传输之后
+         */
+        private long priorityMaxSize = 1024 * 1024L;
+    }
+
+    /**
+     * 预签名地址配置
+     */
+    @Data
+    public static class Presign {
+        /**
+         * 预签名地址的有效期（秒）
+         */
+        private long expireSeconds = 3600;
+        /**
+         * 剩余有效期不足该时间时重新签名，缓存的地址在此之前复用（秒），超过有效期的一半时按一半计算
+         */
+        private long refreshAheadSeconds = 300;
+        /**
+         * 下载地址和分片地址最多缓存的条数
+         */
+        private int cacheMaxSize = 10000;
+    }
+
+    /**
+     * 下载的本地磁盘缓存配置，缓存命中时从本地文件复制，不再从存储服务读取
+     */
+    @Data
+    public static class DownloadCache {
+        /**
+         * 是否开启下载缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 缓存目录，每个存储服务使用其中的存储服务类型/桶名子目录
+         */
+        private String dir = "/tmp/oss-sdk-cache";
+        /**
+         * 缓存文件的总大小上限（字节），超过时淘汰最久未使用的文件，超过上限的单个对象不缓存
+         */
+        private long maxBytes = 1024 * 1024 * 1024L;
+        /**
+         * 距上次校验不超过该时间的缓存直接使用（秒），0表示每次下载都向存储服务发送条件请求校验
+         */
+        private long revalidateSeconds = 0;
+    }
+
+    /**
+     * 小对象的堆外内存缓存配置，getObject读取的对象缓存在直接内存中，占用的内存受-XX:MaxDirectMemorySize限制
+     */
+    @Data
+    public static class ObjectCache {
+        /**
+         * 是否开启对象缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 缓存占用的内存上限（字节），按4KB的块分配
+         */
+        private long maxBytes = 64 * 1024 * 1024L;
+        /**
+         * 单个对象的大小上限（字节），超过的对象不缓存
+         */
+        private long maxObjectSize = 1024 * 1024L;
+        /**
+         * 缓存的有效期（秒），超过后向存储服务发送条件请求校验
+         */
+        private long ttlSeconds = 60;
+    }
 }
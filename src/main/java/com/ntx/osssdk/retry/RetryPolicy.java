@@ -0,0 +1,185 @@
+package com.ntx.osssdk.retry;
+
+import com.aliyun.oss.ServiceException;
+import com.ntx.osssdk.metrics.OssMetrics;
+import com.ntx.osssdk.properties.Properties;
+import com.qiniu.common.QiniuException;
+import io.minio.errors.ErrorResponseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName RetryPolicy
+ * @Author ntx
+ * @Description 分片级重试策略：指数退避加随机抖动，按异常类型和服务端错误码判断是否可重试，
+ * 重试次数受重试预算限制
+ */
+@Component
+@Slf4j
+public class RetryPolicy {
+
+    @Resource
+    private Properties properties;
+
+    @Resource
+    private OssMetrics ossMetrics;
+
+    private List<Class<?>> retryableTypes;
+
+    private Set<String> retryableErrorCodes;
+
+    /**
+     * 剩余的重试额度，每个请求增加budget-ratio，每次重试消耗1
+     */
+    private double budget;
+
+    @PostConstruct
+    public void init() {
+        Properties.Retry retry = properties.getRetry();
+        retryableTypes = new ArrayList<>();
+        for (String name : retry.getRetryableExceptions()) {
+            if (ClassUtils.isPresent(name, getClass().getClassLoader())) {
+                retryableTypes.add(ClassUtils.resolveClassName(name, getClass().getClassLoader()));
+            } else {
+                log.warn("==>可重试的异常类型不存在，已忽略：{}", name);
+            }
+        }
+        retryableErrorCodes = new HashSet<>(retry.getRetryableErrorCodes());
+        budget = retry.getBudgetBurst();
+    }
+
+    /**
+     * 执行任务，失败且可重试时在退避后重试
+     *
+     * @param provider  存储服务，用作指标标签
+     * @param operation 操作，用作指标标签
+     * @param bytes     单次请求传输的字节数，重试时计入重新传输的字节数
+     * @param task      任务，需可重复执行
+     * @return 任务结果
+     * @throws Exception 不可重试、超过重试次数或重试预算不足时抛出最后一次的异常
+     */
+    public <T> T execute(String provider, String operation, long bytes, Callable<T> task) throws Exception {
+        recordRequest();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                if (!retry(provider, operation, attempt, properties.getRetry().getMaxRetries(), e, bytes)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录一个新请求，增加重试额度。使用retry自行实现重试循环时，每个请求调用一次
+     */
+    public void recordRequest() {
+        Properties.Retry retry = properties.getRetry();
+        synchronized (this) {
+            budget = Math.min(retry.getBudgetBurst(), budget + retry.getBudgetRatio());
+        }
+    }
+
+    /**
+     * 判断失败后是否重试，需要重试时记录指标并等待退避时间
+     *
+     * @param provider    存储服务
+     * @param operation   操作
+     * @param attempt     已重试的次数，第一次失败为0
+     * @param maxRetries  最大重试次数
+     * @param e           本次失败的异常
+     * @param wastedBytes 本次失败需要重新传输的字节数
+     * @return 是否重试
+     * @throws InterruptedException 退避等待被中断
+     */
+    public boolean retry(String provider, String operation, int attempt, int maxRetries, Exception e,
+                         long wastedBytes) throws InterruptedException {
+        if (attempt >= maxRetries || !isRetryable(e)) {
+            return false;
+        }
+        if (!acquire()) {
+            log.warn("==>重试预算不足，不再重试：{}", e.getMessage());
+            return false;
+        }
+        ossMetrics.recordRetry(provider, operation, wastedBytes);
+        long backoff = backoffMillis(attempt);
+        log.warn("==>{}失败，{}毫秒后第{}次重试：{}", operation, backoff, attempt + 1, e.getMessage());
+        TimeUnit.MILLISECONDS.sleep(backoff);
+        return true;
+    }
+
+    /**
+     * 是否可重试：异常或其原因属于可重试的异常类型，或服务端错误码可重试
+     *
+     * @param e 异常
+     * @return 是否可重试
+     */
+    public boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof CompletionException) {
+                continue;
+            }
+            if (cause instanceof QiniuException) {
+                // 七牛云的异常都是IOException，按响应判断：网络错误和服务端错误可重试，客户端错误不重试
+                QiniuException qiniuException = (QiniuException) cause;
+                return qiniuException.response == null
+                        ? !qiniuException.isUnrecoverable()
+                        : qiniuException.response.needRetry();
+            }
+            for (Class<?> type : retryableTypes) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+            String code = errorCode(cause);
+            if (code != null && retryableErrorCodes.contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 退避时间：在0到 initial * multiplier^attempt（不超过上限）之间随机，避免多个分片同时重试
+     *
+     * @param attempt 已重试的次数
+     * @return 毫秒
+     */
+    public long backoffMillis(int attempt) {
+        Properties.Retry retry = properties.getRetry();
+        double ceiling = retry.getInitialBackoffMillis() * Math.pow(retry.getMultiplier(), attempt);
+        long bound = (long) Math.min(retry.getMaxBackoffMillis(), ceiling);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private synchronized boolean acquire() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    private static String errorCode(Throwable e) {
+        if (e instanceof ErrorResponseException) {
+            return ((ErrorResponseException) e).errorResponse().code();
+        }
+        if (e instanceof ServiceException) {
+            return ((ServiceException) e).getErrorCode();
+        }
+        return null;
+    }
+}
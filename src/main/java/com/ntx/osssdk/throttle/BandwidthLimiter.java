@@ -0,0 +1,64 @@
+package com.ntx.osssdk.throttle;
+
+import com.ntx.osssdk.properties.Properties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.InputStream;
+
+/**
+ * @ClassName BandwidthLimiter
+ * @Author ntx
+ * @Description 本机所有传输共享的上传、下载带宽限制，速率每次取令牌时读取配置，可在运行时调整
+ */
+@Component
+public class BandwidthLimiter {
+
+    @Resource
+    private Properties properties;
+
+    private final TokenBucket uploadBucket = new TokenBucket();
+
+    private final TokenBucket downloadBucket = new TokenBucket();
+
+    /**
+     * 上传限速，不超过priority-max-size的上传使用优先通道
+     *
+     * @param inputStream 上传的数据
+     * @param size        文件大小，未知时为-1
+     * @return 限速后的输入流，未开启上传限速时返回原输入流
+     */
+    public InputStream throttleUpload(InputStream inputStream, long size) {
+        Properties.Throttle throttle = properties.getThrottle();
+        if (throttle.getUploadBytesPerSecond() <= 0) {
+            return inputStream;
+        }
+        boolean priority = size >= 0 && size <= throttle.getPriorityMaxSize();
+        return new ThrottledInputStream(inputStream, uploadBucket,
+                () -> properties.getThrottle().getUploadBytesPerSecond(), priority);
+    }
+
+    /**
+     * 按上传带宽限制等待，用于不经过输入流读取的数据，如直接从文件读取的分片
+     *
+     * @param bytes 即将上传的字节数
+     * @throws InterruptedException 等待被中断
+     */
+    public void acquireUpload(long bytes) throws InterruptedException {
+        uploadBucket.acquire(bytes, properties.getThrottle().getUploadBytesPerSecond(), false);
+    }
+
+    /**
+     * 下载限速
+     *
+     * @param inputStream 下载的数据
+     * @return 限速后的输入流，未开启下载限速时返回原输入流
+     */
+    public InputStream throttleDownload(InputStream inputStream) {
+        if (properties.getThrottle().getDownloadBytesPerSecond() <= 0) {
+            return inputStream;
+        }
+        return new ThrottledInputStream(inputStream, downloadBucket,
+                () -> properties.getThrottle().getDownloadBytesPerSecond(), false);
+    }
+}
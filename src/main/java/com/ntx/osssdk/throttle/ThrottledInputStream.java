@@ -0,0 +1,63 @@
+package com.ntx.osssdk.throttle;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.LongSupplier;
+
+/**
+ * @ClassName ThrottledInputStream
+ * @Author ntx
+ * @Description 按令牌桶限速读取的输入流，读取后按实际字节数取令牌
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+    private final TokenBucket bucket;
+
+    private final LongSupplier bytesPerSecond;
+
+    private final boolean priority;
+
+    public ThrottledInputStream(InputStream in, TokenBucket bucket, LongSupplier bytesPerSecond, boolean priority) {
+        super(in);
+        this.bucket = bucket;
+        this.bytesPerSecond = bytesPerSecond;
+        this.priority = priority;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, Math.min(len, TokenBucket.CHUNK_SIZE));
+        if (read > 0) {
+            acquire(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的数据仍需从服务端读取
+        long skipped = super.skip(Math.min(n, TokenBucket.CHUNK_SIZE));
+        acquire(skipped);
+        return skipped;
+    }
+
+    private void acquire(long bytes) throws IOException {
+        try {
+            bucket.acquire(bytes, bytesPerSecond.getAsLong(), priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("限速等待被中断");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ntx.osssdk.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName TokenBucket
+ * @Author ntx
+ * @Description 按预约时间实现的令牌桶：每次取令牌预约下一段发送时间，先预约的先发送。
+ * 传输按小块取令牌，多个传输交替预约，带宽在进行中的传输之间平均分配。
+ * 优先通道的预约不排在普通传输已有的预约之后，只推迟普通传输之后的预约。
+ */
+public class TokenBucket {
+
+    /**
+     * 单次取令牌的最大字节数，较大的请求拆成多次，使其他传输可以插入
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 普通传输下一段可以开始发送的时间
+     */
+    private long nextFree = System.nanoTime();
+
+    /**
+     * 优先传输下一段可以开始发送的时间
+     */
+    private long priorityNextFree = System.nanoTime();
+
+    /**
+     * 获取令牌，令牌不足时等待
+     *
+     * @param bytes          字节数
+     * @param bytesPerSecond 速率，不大于0时不限速
+     * @param priority       是否使用优先通道
+     * @throws InterruptedException 等待被中断
+     */
+    public void acquire(long bytes, long bytesPerSecond, boolean priority) throws InterruptedException {
+        while (bytes > 0 && bytesPerSecond > 0) {
+            long chunk = Math.min(bytes, CHUNK_SIZE);
+            long wait = reserve(chunk, bytesPerSecond, priority);
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            bytes -= chunk;
+        }
+    }
+
+    /**
+     * 预约发送时间
+     *
+     * @return 需要等待的纳秒数
+     */
+    private synchronized long reserve(long bytes, long bytesPerSecond, boolean priority) {
+        long now = System.nanoTime();
+        long cost = (long) (bytes * 1e9 / bytesPerSecond);
+        // 空闲时最多积累100毫秒的令牌，避免长时间空闲后瞬间占满带宽
+        long burst = TimeUnit.MILLISECONDS.toNanos(100);
+        nextFree = Math.max(nextFree, now - burst);
+        if (!priority) {
+            long start = nextFree;
+            nextFree += cost;
+            return start - now;
+        }
+        priorityNextFree = Math.max(priorityNextFree, now - burst);
+        long start = priorityNextFree;
+        priorityNextFree += cost;
+        // 优先传输占用的带宽从普通传输之后的预约中扣除
+        nextFree += cost;
+        return start - now;
+    }
+}
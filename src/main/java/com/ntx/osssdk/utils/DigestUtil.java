@@ -0,0 +1,75 @@
+package com.ntx.osssdk.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * @ClassName DigestUtil
+ * @Author ntx
+ * @Description 内容摘要工具类
+ */
+public class DigestUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private DigestUtil() {
+    }
+
+    /**
+     * 创建SHA-256摘要
+     *
+     * @return MessageDigest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取整个输入流并计算SHA-256摘要，不关闭输入流
+     *
+     * @param inputStream 输入流
+     * @return 十六进制摘要
+     * @throws IOException IO异常
+     */
+    public static String sha256Hex(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * 包装输入流，读取的同时计算SHA-256摘要
+     *
+     * @param inputStream 输入流
+     * @return DigestInputStream
+     */
+    public static DigestInputStream digesting(InputStream inputStream) {
+        return new DigestInputStream(inputStream, sha256());
+    }
+
+    /**
+     * 转为十六进制字符串
+     *
+     * @param bytes 字节
+     * @return 十六进制字符串
+     */
+    public static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
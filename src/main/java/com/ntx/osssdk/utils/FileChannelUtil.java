@@ -0,0 +1,70 @@
+package com.ntx.osssdk.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * @ClassName FileChannelUtil
+ * @Author ntx
+ * @Description 基于NIO通道的文件写入工具类
+ */
+public class FileChannelUtil {
+
+    /**
+     * 每个线程复用一块直接内存缓冲区，避免每次下载都分配新的缓冲区
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<>();
+
+    private FileChannelUtil() {
+    }
+
+    /**
+     * 将通道中的数据从指定位置开始写入文件，内存占用只与缓冲区大小有关
+     *
+     * @param source     数据来源
+     * @param target     目标文件通道
+     * @param position   写入的起始位置
+     * @param bufferSize 缓冲区大小（字节）
+     * @return 写入的字节数
+     * @throws IOException IO异常
+     */
+    public static long transfer(ReadableByteChannel source, FileChannel target, long position, int bufferSize) throws IOException {
+        ByteBuffer buffer = buffer(bufferSize);
+        long written = 0;
+        boolean eof = false;
+        while (!eof) {
+            // 尽量填满缓冲区再写入，减少写文件的系统调用次数
+            while (buffer.hasRemaining()) {
+                if (source.read(buffer) == -1) {
+                    eof = true;
+                    break;
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += target.write(buffer, position + written);
+            }
+            buffer.clear();
+        }
+        return written;
+    }
+
+    /**
+     * 获取当前线程的缓冲区，容量不足时重新分配
+     *
+     * @param bufferSize 缓冲区大小
+     * @return 已清空的缓冲区
+     */
+    private static ByteBuffer buffer(int bufferSize) {
+        ByteBuffer buffer = BUFFERS.get();
+        if (buffer == null || buffer.capacity() < bufferSize) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+            BUFFERS.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(bufferSize);
+        return buffer;
+    }
+}
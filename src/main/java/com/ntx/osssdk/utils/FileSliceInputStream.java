@@ -0,0 +1,76 @@
+package com.ntx.osssdk.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * @ClassName FileSliceInputStream
+ * @Author ntx
+ * @Description 按位置读取文件中一段数据的输入流，不改变通道的位置，同一通道可同时读取多段
+ */
+public class FileSliceInputStream extends InputStream {
+
+    private final FileChannel channel;
+
+    private final long end;
+
+    private final boolean closeChannel;
+
+    private long position;
+
+    /**
+     * @param channel      文件通道
+     * @param position     起始位置
+     * @param length       长度
+     * @param closeChannel 关闭输入流时是否关闭通道
+     */
+    public FileSliceInputStream(FileChannel channel, long position, long length, boolean closeChannel) {
+        this.channel = channel;
+        this.position = position;
+        this.end = position + length;
+        this.closeChannel = closeChannel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+        if (read == -1) {
+            throw new IOException("文件长度小于预期，读取位置：" + position);
+        }
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ntx.osssdk.utils;
 
+import com.ntx.osssdk.cache.TtlCache;
+import com.ntx.osssdk.properties.Properties;
 import io.minio.*;
 import io.minio.messages.Bucket;
 import io.minio.messages.Item;
@@ -7,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.io.ByteArrayInputStream;
 import java.util.List;
@@ -19,21 +22,60 @@ import java.util.List;
 public class MinioUtil {
     @Resource
     private MinioClient minioClient;
+    @Resource
+    private Properties properties;
+
+    /**
+     * 桶是否存在的缓存，桶数量很少，容量固定
+     */
+    private TtlCache<String, Boolean> bucketCache;
+
+    public MinioUtil() {
+    }
+
+    /**
+     * 不经过容器创建，用于连接其他minio服务
+     *
+     * @param minioClient minio客户端
+     * @param properties  配置
+     */
+    public MinioUtil(MinioClient minioClient, Properties properties) {
+        this.minioClient = minioClient;
+        this.properties = properties;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        bucketCache = new TtlCache<>(properties.getCache().getBucketTtlSeconds() * 1000, 256);
+    }
 
     /**
-     * 查看存储bucket是否存在
+     * 查看存储bucket是否存在，只缓存存在的结果，不存在或查询失败时不缓存，
+     * 其他进程创建桶后下次查询即可看到
      *
      * @return boolean
      */
     public Boolean bucketExists(String bucketName) {
         Boolean found;
         try {
-            found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            // 加载结果为null时不写入缓存
+            found = bucketCache.get(bucketName, name ->
+                    minioClient.bucketExists(BucketExistsArgs.builder().bucket(name).build()) ? Boolean.TRUE : null);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
-        return found;
+        return found != null;
+    }
+
+    /**
+     * 获取桶是否存在的缓存，可用于查看命中情况
+     *
+     * @return 缓存
+     */
+    public TtlCache<String, Boolean> getBucketCache() {
+        return bucketCache;
     }
 
     /**
@@ -49,6 +91,8 @@ public class MinioUtil {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            bucketCache.invalidate(bucketName);
         }
         return true;
     }
@@ -67,6 +111,8 @@ public class MinioUtil {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            bucketCache.invalidate(bucketName);
         }
         return true;
     }
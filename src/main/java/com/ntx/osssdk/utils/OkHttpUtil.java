@@ -0,0 +1,50 @@
+package com.ntx.osssdk.utils;
+
+import com.ntx.osssdk.properties.Properties;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName OkHttpUtil
+ * @Author ntx
+ * @Description OkHttp客户端工具类
+ */
+public class OkHttpUtil {
+
+    private OkHttpUtil() {
+    }
+
+    /**
+     * 根据配置创建OkHttpClient，连接池和调度器按配置设置
+     *
+     * @param http OkHttp配置
+     * @return OkHttpClient
+     */
+    public static OkHttpClient newClient(Properties.Http http) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(http.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(http.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(http.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 关闭OkHttpClient的调度线程并清空连接池
+     *
+     * @param client OkHttpClient
+     */
+    public static void close(OkHttpClient client) {
+        if (client != null) {
+            client.dispatcher().executorService().shutdown();
+            client.connectionPool().evictAll();
+        }
+    }
+}